@@ -0,0 +1,68 @@
+package benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import chess.ChessGame;
+import model.GameData;
+import websocket.messages.LoadGame;
+import websocket.messages.ServerMessage;
+import websockets.ConnectionManager;
+
+/**
+ * Fan-out of one game update through ConnectionManager.broadcast to stub
+ * sessions whose remote endpoint only hands the message to a Blackhole and
+ * completes the async write at once, so the cost measured is serialization,
+ * queueing and iteration, not network I/O
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BroadcastBenchmark {
+
+    @Param({"2", "10", "100"})
+    public int sessions;
+
+    private ConnectionManager connections;
+    private ServerMessage message;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        connections = new ConnectionManager();
+        for (int i = 0; i < sessions; i++) {connections.add(1, stubSession(blackhole));}
+        message = new LoadGame(new GameData(1, "white", "black", "benchmark", new ChessGame()));
+    }
+
+    @Benchmark
+    public void broadcast() {
+        connections.broadcast(1, null, message);
+    }
+
+    private static Session stubSession(Blackhole blackhole) {
+        RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(RemoteEndpoint.class.getClassLoader(),
+                new Class<?>[] {RemoteEndpoint.class}, (proxy, method, args) -> {
+                    if (args != null) {blackhole.consume(args[0]);}
+                    if (args != null && args.length == 2 && args[1] instanceof WriteCallback callback) {
+                        callback.writeSuccess();
+                    }
+                    return null;
+                });
+        return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[] {Session.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "isOpen" -> true;
+                    case "getRemote" -> remote;
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> null;
+                });
+    }
+}
@@ -0,0 +1,62 @@
+package benchmark;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import chess.*;
+import chess.positioning.Fen;
+
+/**
+ * Rules engine hot paths: move validation, checkmate detection and board setup
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChessGameBenchmark {
+
+    @Param({"start", "middlegame", "mate"})
+    public String position;
+
+    private ChessGame game;
+    private ChessPosition[] occupied;
+
+    @Setup
+    public void setUp() {
+        game = Fen.parse(switch (position) {
+            case "middlegame" -> "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP2BPPP/R2QKB1R w - - 0 1";
+            case "mate" -> "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w - - 0 1";
+            default -> Fen.START;
+        });
+        occupied = new ChessPosition[Long.bitCount(game.getBoard().getOccupied())];
+        int i = 0;
+        for (long bits = game.getBoard().getOccupied(); bits != 0; bits &= bits - 1) {
+            occupied[i++] = ChessBoard.position(Long.numberOfTrailingZeros(bits));
+        }
+    }
+
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for (ChessPosition square : occupied) {
+            Collection<ChessMove> moves = game.validMoves(square);
+            blackhole.consume(moves);
+        }
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return game.isInCheckmate(game.getTeamTurn());
+    }
+
+    @Benchmark
+    public ChessBoard resetBoard() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        return board;
+    }
+}
@@ -0,0 +1,60 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import chess.ChessGame;
+import dataaccess.MemoryAuthDAO;
+import dataaccess.MemoryGameDAO;
+import model.AuthData;
+import model.GameData;
+
+/**
+ * Lookups against the in-memory DAOs, filled with a configurable number of rows
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DaoBenchmark {
+
+    @Param({"100", "10000"})
+    public int rows;
+
+    private MemoryGameDAO games;
+    private MemoryAuthDAO auths;
+    private String[] tokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        games = new MemoryGameDAO();
+        auths = new MemoryAuthDAO();
+        tokens = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            games.createGame(new GameData(i + 1, "white" + i, "black" + i, "game" + i, new ChessGame()));
+            tokens[i] = "token-" + i;
+            auths.createAuth(new AuthData(tokens[i], "user" + i));
+        }
+    }
+
+    @Benchmark
+    public GameData getGame() {
+        next = (next + 1) % rows;
+        return games.getGame(next + 1);
+    }
+
+    @Benchmark
+    public GameData[] listGames() {
+        return games.listGames();
+    }
+
+    @Benchmark
+    public AuthData getAuth() {
+        next = (next + 1) % rows;
+        return auths.getAuth(tokens[next]);
+    }
+}
@@ -0,0 +1,75 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import chess.ChessGame;
+import dataaccess.MemoryAuthDAO;
+import dataaccess.MemoryGameDAO;
+import dataaccess.exceptions.DataAccessException;
+import handler.Join;
+import handler.List;
+import model.AuthData;
+import model.GameData;
+import service.Game;
+
+/**
+ * The GET /game and PUT /game handler paths against the in-memory DAOs, building
+ * the handler and service for each request versus reusing the ones made at
+ * startup. Run with {@code -prof gc} to compare bytes allocated per request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestPathBenchmark {
+
+    private static final String TOKEN = "token";
+    private static final int GAME_ID = 1;
+    private static final String JOIN_BODY = "{\"playerColor\":\"WHITE\",\"gameID\":" + GAME_ID + "}";
+
+    private MemoryAuthDAO auths;
+    private MemoryGameDAO games;
+    private GameData open;
+    private List list;
+    private Join join;
+
+    @Setup
+    public void setUp() {
+        auths = new MemoryAuthDAO();
+        games = new MemoryGameDAO();
+        auths.createAuth(new AuthData(TOKEN, "player"));
+        open = new GameData(GAME_ID, null, "black", "benchmark", new ChessGame());
+        games.createGame(open);
+        Game gameService = new Game(auths, games);
+        list = new List(gameService);
+        join = new Join(gameService);
+    }
+
+    @Benchmark
+    public String listPerRequest() throws DataAccessException {
+        return new List(new Game(auths, games)).run(TOKEN, null);
+    }
+
+    @Benchmark
+    public String listShared() throws DataAccessException {
+        return list.run(TOKEN, null);
+    }
+
+    @Benchmark
+    public String joinPerRequest() throws DataAccessException {
+        String result = new Join(new Game(auths, games)).run(TOKEN, JOIN_BODY);
+        games.updateGame(GAME_ID, open);
+        return result;
+    }
+
+    @Benchmark
+    public String joinShared() throws DataAccessException {
+        String result = join.run(TOKEN, JOIN_BODY);
+        games.updateGame(GAME_ID, open);
+        return result;
+    }
+}
@@ -0,0 +1,75 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+
+import chess.ChessGame;
+import chess.positioning.ChessJson;
+import chess.positioning.GameCodec;
+import model.GameData;
+
+/**
+ * Gson round trips of GameData, the payload stored in the database and sent to
+ * every websocket client on each move: reflective Gson, the ChessJson adapters
+ * (FEN and algebraic squares), and the binary GameCodec
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    private final Gson gson = new Gson();
+    private GameData game;
+    private final Gson compact = ChessJson.gson();
+    private String json;
+    private String compactJson;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        game = new GameData(1, "white", "black", "benchmark", new ChessGame());
+        json = gson.toJson(game);
+        compactJson = compact.toJson(game);
+        bytes = GameCodec.encode(game.game());
+    }
+
+    @Benchmark
+    public String toJson() {
+        return gson.toJson(game);
+    }
+
+    @Benchmark
+    public GameData fromJson() {
+        return gson.fromJson(json, GameData.class);
+    }
+
+    @Benchmark
+    public GameData roundTrip() {
+        return gson.fromJson(gson.toJson(game), GameData.class);
+    }
+
+    @Benchmark
+    public String compactToJson() {
+        return compact.toJson(game);
+    }
+
+    @Benchmark
+    public GameData compactFromJson() {
+        return compact.fromJson(compactJson, GameData.class);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return GameCodec.encode(game.game());
+    }
+
+    @Benchmark
+    public ChessGame decode() {
+        return GameCodec.decode(bytes);
+    }
+}
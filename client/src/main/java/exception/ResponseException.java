@@ -1,6 +1,6 @@
 package exception;
 
-import com.google.gson.Gson;
+import chess.positioning.ChessJson;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -20,11 +20,11 @@ public class ResponseException extends Exception {
     }
 
     public String toJson() {
-        return new Gson().toJson(Map.of("message", getMessage(), "status", code));
+        return ChessJson.gson().toJson(Map.of("message", getMessage(), "status", code));
     }
 
     public static ResponseException fromJson(int status, String json) {
-        var map = new Gson().fromJson(json, HashMap.class);
+        var map = ChessJson.gson().fromJson(json, HashMap.class);
         String message = map.get("message").toString();
         return new ResponseException(fromHttpStatusCode(status), message);
     }
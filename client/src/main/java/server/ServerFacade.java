@@ -1,6 +1,6 @@
 package server;
 
-import com.google.gson.Gson;
+import chess.positioning.ChessJson;
 
 import jakarta.websocket.DeploymentException;
 import model.*;
@@ -8,6 +8,7 @@ import model.*;
 import java.io.IOException;
 import java.net.*;
 import java.net.http.*;
+import java.nio.charset.StandardCharsets;
 
 import exception.ResponseException;
 
@@ -55,6 +56,17 @@ public class ServerFacade {
         return handleResponse(response, ListResult.class);
     }
 
+    public ListResult listGames(ListRequest query, String auth) throws ResponseException {
+        StringBuilder path = new StringBuilder("/game?open=").append(query.openOnly());
+        if (query.cursor() != null) {path.append("&cursor=").append(query.cursor());}
+        if (query.limit() != null) {path.append("&limit=").append(query.limit());}
+        if (query.player() != null) {path.append("&player=").append(URLEncoder.encode(query.player(), StandardCharsets.UTF_8));}
+        if (query.status() != null) {path.append("&status=").append(URLEncoder.encode(query.status(), StandardCharsets.UTF_8));}
+        HttpRequest request = buildRequest("GET", path.toString(), null, auth);
+        HttpResponse<String> response = sendRequest(request);
+        return handleResponse(response, ListResult.class);
+    }
+
     public GetResult getGame(GetRequest gameID, String auth) throws ResponseException {
         HttpRequest request = buildRequest("GET", "/game/specific", gameID, auth);
         HttpResponse<String> response = sendRequest(request);
@@ -94,7 +106,7 @@ public class ServerFacade {
     }
 
     private HttpRequest.BodyPublisher makeRequestBody(Object body) {
-        if (body != null) { return HttpRequest.BodyPublishers.ofString(new Gson().toJson(body)); }
+        if (body != null) { return HttpRequest.BodyPublishers.ofString(ChessJson.gson().toJson(body)); }
         else { return HttpRequest.BodyPublishers.noBody(); }
     }
 
@@ -116,7 +128,7 @@ public class ServerFacade {
             throw new ResponseException(ResponseException.fromHttpStatusCode(status), "other failure: " + status);
         }
         if (responseClass != null) {
-            return new Gson().fromJson(response.body(), responseClass);
+            return ChessJson.gson().fromJson(response.body(), responseClass);
         }
         return null;
     }
@@ -4,10 +4,11 @@ import chess.ChessMove;
 
 import ui.MessageUI;
 
+import websocket.commands.ConnectCommand;
 import websocket.commands.MakeMoveCommand;
 import websocket.commands.UserGameCommand;
 
-import com.google.gson.Gson;
+import chess.positioning.ChessJson;
 import exception.ResponseException;
 
 import jakarta.websocket.*;
@@ -41,7 +42,7 @@ public class WebSocketFacade extends Endpoint {
     public void connect(String authToken, Integer gameID) throws ResponseException {
         try {
             waitForOpen();
-            send(new UserGameCommand(UserGameCommand.CommandType.CONNECT, authToken, gameID));
+            send(new ConnectCommand(authToken, gameID, true));
         } catch (Exception ex) {
             throw new ResponseException(ResponseException.Code.ServerError, ex.getMessage());
         }
@@ -55,6 +56,10 @@ public class WebSocketFacade extends Endpoint {
         }
     }
 
+    public void resync(String authToken, Integer gameID) {
+        send(new UserGameCommand(UserGameCommand.CommandType.RESYNC, authToken, gameID));
+    }
+
     public void leave(String authToken, Integer gameID) throws ResponseException {
         try {
             send(new UserGameCommand(UserGameCommand.CommandType.LEAVE, authToken, gameID));
@@ -93,7 +98,7 @@ public class WebSocketFacade extends Endpoint {
     }
 
     private void send(UserGameCommand command) {
-        String json = new Gson().toJson(command);
+        String json = ChessJson.gson().toJson(command);
         try {
             session.getBasicRemote().sendText(json);
         } catch (IOException ex) {
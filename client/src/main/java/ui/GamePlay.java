@@ -45,6 +45,7 @@ public class GamePlay {
 
         this.messageUI = new MessageUI(userColor, game);
         this.webSocket = server.getWebSocket(this.messageUI);
+        this.messageUI.setResync(() -> webSocket.resync(authToken, gameID));
         this.webSocket.connect(authToken, gameID);
 
         if (game.game().getTeamTurn().equals(ChessGame.TeamColor.FINISHED)) {
@@ -1 +1 @@
-package ui;import chess.ChessBoard;import chess.ChessGame;import chess.ChessMove;import chess.ChessPosition;import com.google.gson.Gson;import model.GameData;import websocket.messages.*;import java.util.ArrayList;import java.util.Arrays;import java.util.HashSet;import java.util.List;import static ui.EscapeSequences.*;public class MessageUI {    private volatile GameData game;    private ChessGame.TeamColor color;    private Boolean observer;    private boolean entry;    private boolean both;    public MessageUI(ChessGame.TeamColor color, GameData game) {        this.color = color;        this.observer = false;        this.entry = true;        this.both = false;        if (game.whiteUsername() != null & game.blackUsername() != null) {            this.both = game.whiteUsername().equals(game.blackUsername());        }        if (this.color == null) {            this.color = ChessGame.TeamColor.WHITE;            this.observer = true;        }        this.game = game;    }    public void call(String message) {        ServerMessage mess = new Gson().fromJson(message, ServerMessage.class);        switch (mess.getServerMessageType()) {            case ERROR -> {error(new Gson().fromJson(message, ErrorMessage.class));}            case LOAD_GAME -> {update(new Gson().fromJson(message, LoadGame.class));}            case NOTIFICATION -> {tell(new Gson().fromJson(message, Notification.class));}            default -> {ignore();}        }    }    private void error(ErrorMessage error) {        System.out.println(Arrays.stream(error.getErrorMessage().split(": ")).toList().getLast());        printPrompt();    }    private void update(LoadGame game) {        if (game.getGame() != null) {            if (entry) {entry = false;}            else if (observer) {System.out.println();}            else if (color.equals(game.getGame().game().getTeamTurn())) {System.out.println();}            this.game = game.getGame();            draw();        }    }    private void tell(Notification note) {        System.out.print(ERASE_LINE);        System.out.flush();        String prepNote = note.getNotification();        if (note.getType().equals(Notification.NotificationType.MOVE)) {            String[] moveData = prepNote.split(":");            String[] coordinates = moveData[1].split("\\), ");            String[] start = coordinates[0].split(",");            start[0] = start[0].substring(3);            String[] end = coordinates[1].split(",");            end[0] = end[0].substring(1);            String promotion = coordinates[2].replace(")", "");            if (!promotion.equals("null")) {promotion = ", promoted pawn to " + promotion;}            else {promotion = "";}            String sCol = "abcdefgh".substring(Integer.parseInt(start[1])-1, Integer.parseInt(start[1]));            String eCol = "abcdefgh".substring(Integer.parseInt(end[1])-1, Integer.parseInt(end[1]));            prepNote = moveData[0] + " moved " + sCol + start[0] + " to " + eCol + end[0] + promotion;        }        System.out.print(prepNote);         if (note.getType().equals(Notification.NotificationType.RESIGN)) {            game.game().setTeamTurn(ChessGame.TeamColor.FINISHED);            System.out.println("\nGame is finished");        }        printPrompt();    }    private void ignore() {}    public void draw() {        printGame(game, new HashSet<>());        if (game.game().getTeamTurn().equals(ChessGame.TeamColor.FINISHED)) {System.out.println("Game is finished");}        printPrompt();    }    public void highlightDraw(ChessPosition startPos) {        var validMoves = game.game().validMoves(startPos);        HashSet<Integer> highlights = new HashSet<>();        if (validMoves != null) {            highlights.add(getLinearPos(startPos));            for (ChessMove move : validMoves) {                highlights.add(getLinearPos(move.getEndPosition()));            }        }        printGame(game, highlights);        printPrompt();    }    public GameData getCurrentGame() {        return game;    }    private int getLinearPos(ChessPosition pos) {        int linearPos;        int extra = 0;        if (color.equals(ChessGame.TeamColor.BLACK)) {extra = 1;}        linearPos = (pos.getRow()-1)*8 + (8 + pos.getColumn() * -1 + extra);        if (color.equals(ChessGame.TeamColor.WHITE)) {linearPos = 64 - linearPos;}        return linearPos;    }    private void printPrompt() {        System.out.print("\n" + RESET_TEXT_COLOR + "[GAME_PLAY] >>> " + SET_TEXT_COLOR_BLUE);    }    private void printGame(GameData game, HashSet<Integer> highlightPositions) {        var builder = new StringBuilder();        ChessBoard board = game.game().getBoard();        String boarderColor = SET_BG_COLOR_LIGHT_GREY + SET_TEXT_COLOR_BLUE;        if (both & !observer) {            color = game.game().getTeamTurn();        }        int linearPos = 0;        if (color.equals(ChessGame.TeamColor.BLACK)) {linearPos += 1;}        List<String> boardView = new ArrayList<>(Arrays.stream(board.toString().split("\\|")).toList());        String backgroundColor1;        String backgroundColor2;        String horizontal;        List<String> vertical;        builder.append("\n");        if (color.equals(ChessGame.TeamColor.BLACK)) {            horizontal = boarderColor + "    h  g  f  e  d  c  b  a    " + RESET_BG_COLOR;            vertical = new ArrayList<>(Arrays.stream("| 8 | 7 | 6 | 5 | 4 | 3 | 2 | 1 ".split("\\|")).toList());            boardView = boardView.reversed();            backgroundColor1 = SET_BG_COLOR_WHITE;            backgroundColor2 = SET_BG_COLOR_BLACK;        } else {            horizontal = boarderColor + "    a  b  c  d  e  f  g  h    " + RESET_BG_COLOR;            vertical = new ArrayList<>(Arrays.stream("| 1 | 2 | 3 | 4 | 5 | 6 | 7 | 8 ".split("\\|")).toList());            backgroundColor1 = SET_BG_COLOR_BLACK;            backgroundColor2 = SET_BG_COLOR_WHITE;        }        boardView.add("\n");        builder.append(horizontal);        builder.append("\n");        builder.append(boarderColor);        builder.append(vertical.getLast());        for (String part : boardView) {//This iterates through the board            if (part.equals("\n")) {                builder.append(boarderColor);                builder.append(vertical.removeLast());                builder.append(RESET_BG_COLOR);                builder.append(part);                builder.append(boarderColor);                builder.append(vertical.getLast());            } else {                linearPos += 1;            }            if (highlightPositions.contains(linearPos - 1)) {                if (backgroundColor1.equals(SET_BG_COLOR_BLACK)) {                    builder.append("\u001b").append("[48;5;").append("184m");                } else {                    builder.append("\u001b").append("[48;5;").append("228m");                }            } else {                builder.append(backgroundColor1);            }            String tempBackground = backgroundColor2;            backgroundColor2 = backgroundColor1;            backgroundColor1 = tempBackground;            builder.append(translatePiece(part));        }        builder.append(SET_TEXT_COLOR_BLUE);        builder.append(RESET_BG_COLOR);        builder.append(horizontal);        builder.append(RESET_BG_COLOR);        builder.append("\n");        System.out.print(builder);    }    private String translatePiece(String piece) {        return switch (piece) {            case "R" -> SET_TEXT_COLOR_MAGENTA + WHITE_ROOK;            case "N" -> SET_TEXT_COLOR_MAGENTA + WHITE_KNIGHT;            case "B" -> SET_TEXT_COLOR_MAGENTA + WHITE_BISHOP;            case "Q" -> SET_TEXT_COLOR_MAGENTA + WHITE_QUEEN;            case "K" -> SET_TEXT_COLOR_MAGENTA + WHITE_KING;            case "P" -> SET_TEXT_COLOR_MAGENTA + WHITE_PAWN;            case "r" -> SET_TEXT_COLOR_LIGHT_GREY + BLACK_ROOK;            case "n" -> SET_TEXT_COLOR_LIGHT_GREY + BLACK_KNIGHT;            case "b" -> SET_TEXT_COLOR_LIGHT_GREY + BLACK_BISHOP;            case "q" -> SET_TEXT_COLOR_LIGHT_GREY + BLACK_QUEEN;            case "k" -> SET_TEXT_COLOR_LIGHT_GREY + BLACK_KING;            case "p" -> SET_TEXT_COLOR_LIGHT_GREY + BLACK_PAWN;            case " " -> EMPTY;            case "\n" -> "";            default -> piece;        };    }}
\ No newline at end of file
+package ui;import chess.ChessBoard;import chess.ChessGame;import chess.ChessMove;import chess.ChessPosition;import chess.InvalidMoveException;import chess.positioning.ChessJson;import com.google.gson.Gson;import model.GameData;import websocket.messages.*;import java.util.ArrayList;import java.util.Arrays;import java.util.HashSet;import java.util.List;import static ui.EscapeSequences.*;public class MessageUI {    private static final Gson GSON = ChessJson.gson();    private volatile GameData game;    private ChessGame.TeamColor color;    private Boolean observer;    private boolean entry;    private boolean both;    private volatile Runnable resync = () -> {};    public MessageUI(ChessGame.TeamColor color, GameData game) {        this.color = color;        this.observer = false;        this.entry = true;        this.both = false;        if (game.whiteUsername() != null & game.blackUsername() != null) {            this.both = game.whiteUsername().equals(game.blackUsername());        }        if (this.color == null) {            this.color = ChessGame.TeamColor.WHITE;            this.observer = true;        }        this.game = game;    }    public void call(String message) {        ServerMessage mess = GSON.fromJson(message, ServerMessage.class);        switch (mess.getServerMessageType()) {            case ERROR -> {error(GSON.fromJson(message, ErrorMessage.class));}            case LOAD_GAME -> {update(GSON.fromJson(message, LoadGame.class));}            case NOTIFICATION -> {tell(GSON.fromJson(message, Notification.class));}            case MOVE -> {apply(GSON.fromJson(message, MoveMade.class));}            default -> {ignore();}        }    }    private void error(ErrorMessage error) {        System.out.println(Arrays.stream(error.getErrorMessage().split(": ")).toList().getLast());        printPrompt();    }    private void update(LoadGame game) {        if (game.getGame() != null) {            if (entry) {entry = false;}            else if (observer) {System.out.println();}            else if (color.equals(game.getGame().game().getTeamTurn())) {System.out.println();}            this.game = game.getGame();            draw();        }    }    //replays a move delta on the local game, asking for a full LOAD_GAME if it does not line up    private void apply(MoveMade delta) {        ChessGame local = game.game();        if (delta.getPly() != local.getPly() + 1) {            resync.run();            return;        }        try {            local.makeMove(delta.getMove());        } catch (InvalidMoveException ex) {            resync.run();            return;        }        local.setTeamTurn(delta.getTeamTurn());        if (local.zobrist() != delta.getHash()) {            resync.run();            return;        }        if (observer) {System.out.println();}        else if (color.equals(local.getTeamTurn())) {System.out.println();}        draw();    }    private void tell(Notification note) {        System.out.print(ERASE_LINE);        System.out.flush();        String prepNote = note.getNotification();        if (note.getType().equals(Notification.NotificationType.MOVE)) {            String[] moveData = prepNote.split(":");            String[] coordinates = moveData[1].split("\\), ");            String[] start = coordinates[0].split(",");            start[0] = start[0].substring(3);            String[] end = coordinates[1].split(",");            end[0] = end[0].substring(1);            String promotion = coordinates[2].replace(")", "");            if (!promotion.equals("null")) {promotion = ", promoted pawn to " + promotion;}            else {promotion = "";}            String sCol = "abcdefgh".substring(Integer.parseInt(start[1])-1, Integer.parseInt(start[1]));            String eCol = "abcdefgh".substring(Integer.parseInt(end[1])-1, Integer.parseInt(end[1]));            prepNote = moveData[0] + " moved " + sCol + start[0] + " to " + eCol + end[0] + promotion;        }        System.out.print(prepNote);         if (note.getType().equals(Notification.NotificationType.RESIGN)) {            game.game().setTeamTurn(ChessGame.TeamColor.FINISHED);            System.out.println("\nGame is finished");        }        printPrompt();    }    private void ignore() {}    public void draw() {        printGame(game, new HashSet<>());        if (game.game().getTeamTurn().equals(ChessGame.TeamColor.FINISHED)) {System.out.println("Game is finished");}        printPrompt();    }    public void highlightDraw(ChessPosition startPos) {        var validMoves = game.game().validMoves(startPos);        HashSet<Integer> highlights = new HashSet<>();        if (validMoves != null) {            highlights.add(getLinearPos(startPos));            for (ChessMove move : validMoves) {                highlights.add(getLinearPos(move.getEndPosition()));            }        }        printGame(game, highlights);        printPrompt();    }    /**     * @param resync called when a move delta does not match the local game, to     * request the full game from the server     */    public void setResync(Runnable resync) {        this.resync = resync;    }    public GameData getCurrentGame() {        return game;    }    private int getLinearPos(ChessPosition pos) {        int linearPos;        int extra = 0;        if (color.equals(ChessGame.TeamColor.BLACK)) {extra = 1;}        linearPos = (pos.getRow()-1)*8 + (8 + pos.getColumn() * -1 + extra);        if (color.equals(ChessGame.TeamColor.WHITE)) {linearPos = 64 - linearPos;}        return linearPos;    }    private void printPrompt() {        System.out.print("\n" + RESET_TEXT_COLOR + "[GAME_PLAY] >>> " + SET_TEXT_COLOR_BLUE);    }    private void printGame(GameData game, HashSet<Integer> highlightPositions) {        var builder = new StringBuilder();        ChessBoard board = game.game().getBoard();        String boarderColor = SET_BG_COLOR_LIGHT_GREY + SET_TEXT_COLOR_BLUE;        if (both & !observer) {            color = game.game().getTeamTurn();        }        int linearPos = 0;        if (color.equals(ChessGame.TeamColor.BLACK)) {linearPos += 1;}        List<String> boardView = new ArrayList<>(Arrays.stream(board.toString().split("\\|")).toList());        String backgroundColor1;        String backgroundColor2;        String horizontal;        List<String> vertical;        builder.append("\n");        if (color.equals(ChessGame.TeamColor.BLACK)) {            horizontal = boarderColor + "    h  g  f  e  d  c  b  a    " + RESET_BG_COLOR;            vertical = new ArrayList<>(Arrays.stream("| 8 | 7 | 6 | 5 | 4 | 3 | 2 | 1 ".split("\\|")).toList());            boardView = boardView.reversed();            backgroundColor1 = SET_BG_COLOR_WHITE;            backgroundColor2 = SET_BG_COLOR_BLACK;        } else {            horizontal = boarderColor + "    a  b  c  d  e  f  g  h    " + RESET_BG_COLOR;            vertical = new ArrayList<>(Arrays.stream("| 1 | 2 | 3 | 4 | 5 | 6 | 7 | 8 ".split("\\|")).toList());            backgroundColor1 = SET_BG_COLOR_BLACK;            backgroundColor2 = SET_BG_COLOR_WHITE;        }        boardView.add("\n");        builder.append(horizontal);        builder.append("\n");        builder.append(boarderColor);        builder.append(vertical.getLast());        for (String part : boardView) {//This iterates through the board            if (part.equals("\n")) {                builder.append(boarderColor);                builder.append(vertical.removeLast());                builder.append(RESET_BG_COLOR);                builder.append(part);                builder.append(boarderColor);                builder.append(vertical.getLast());            } else {                linearPos += 1;            }            if (highlightPositions.contains(linearPos - 1)) {                if (backgroundColor1.equals(SET_BG_COLOR_BLACK)) {                    builder.append("\u001b").append("[48;5;").append("184m");                } else {                    builder.append("\u001b").append("[48;5;").append("228m");                }            } else {                builder.append(backgroundColor1);            }            String tempBackground = backgroundColor2;            backgroundColor2 = backgroundColor1;            backgroundColor1 = tempBackground;            builder.append(translatePiece(part));        }        builder.append(SET_TEXT_COLOR_BLUE);        builder.append(RESET_BG_COLOR);        builder.append(horizontal);        builder.append(RESET_BG_COLOR);        builder.append("\n");        System.out.print(builder);    }    private String translatePiece(String piece) {        return switch (piece) {            case "R" -> SET_TEXT_COLOR_MAGENTA + WHITE_ROOK;            case "N" -> SET_TEXT_COLOR_MAGENTA + WHITE_KNIGHT;            case "B" -> SET_TEXT_COLOR_MAGENTA + WHITE_BISHOP;            case "Q" -> SET_TEXT_COLOR_MAGENTA + WHITE_QUEEN;            case "K" -> SET_TEXT_COLOR_MAGENTA + WHITE_KING;            case "P" -> SET_TEXT_COLOR_MAGENTA + WHITE_PAWN;            case "r" -> SET_TEXT_COLOR_LIGHT_GREY + BLACK_ROOK;            case "n" -> SET_TEXT_COLOR_LIGHT_GREY + BLACK_KNIGHT;            case "b" -> SET_TEXT_COLOR_LIGHT_GREY + BLACK_BISHOP;            case "q" -> SET_TEXT_COLOR_LIGHT_GREY + BLACK_QUEEN;            case "k" -> SET_TEXT_COLOR_LIGHT_GREY + BLACK_KING;            case "p" -> SET_TEXT_COLOR_LIGHT_GREY + BLACK_PAWN;            case " " -> EMPTY;            case "\n" -> "";            default -> piece;        };    }}
\ No newline at end of file
@@ -0,0 +1,116 @@
+package dataaccess;
+
+import dataaccess.exceptions.DataAccessException;
+import dataaccess.exceptions.InvalidAuthorizationException;
+import dataaccess.interfaces.AuthDAO;
+
+import model.AuthData;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, least-recently-used cache of auth lookups in front of another AuthDAO.
+ * Valid tokens are remembered for the positive TTL. Unknown tokens are remembered
+ * as misses for a much shorter negative TTL, so repeated bad tokens don't each
+ * cost a query but newly created ones still show up quickly. Tokens created or
+ * deleted through this DAO update the cache immediately.
+ */
+public class CachingAuthDAO implements AuthDAO {
+    //auth is null for a cached miss
+    private record Entry(AuthData auth, long expires) {}
+
+    private final AuthDAO backing;
+    private final long positiveTtlNanos;
+    private final long negativeTtlNanos;
+    private final LinkedHashMap<String, Entry> cache;
+    //bumped by every delete, so a lookup racing with a delete does not re-cache the token
+    private final AtomicLong deletions = new AtomicLong();
+    private volatile Consumer<String> revocationListener = token -> {};
+
+    public CachingAuthDAO(AuthDAO backing, int maxEntries, long positiveTtlMillis, long negativeTtlMillis) {
+        this.backing = backing;
+        this.positiveTtlNanos = TimeUnit.MILLISECONDS.toNanos(positiveTtlMillis);
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtlMillis);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public boolean createAuth(AuthData a) throws DataAccessException {
+        boolean taken = backing.createAuth(a);
+        if (!taken) {remember(a.authToken(), a);}
+        return taken;
+    }
+
+    @Override
+    public AuthData getAuth(String token) throws DataAccessException {
+        if (token == null) {return null;}
+        synchronized (cache) {
+            Entry entry = cache.get(token);
+            if (entry != null) {
+                if (entry.expires() - System.nanoTime() > 0) {return entry.auth();}
+                cache.remove(token);
+            }
+        }
+        long seen = deletions.get();
+        AuthData auth = backing.getAuth(token);
+        synchronized (cache) {
+            if (deletions.get() == seen) {remember(token, auth);}
+        }
+        return auth;
+    }
+
+    @Override
+    public void deleteAuth(String token) throws InvalidAuthorizationException, DataAccessException {
+        invalidate(token);
+        try {
+            backing.deleteAuth(token);
+        } finally {
+            //again, for lookups that read the token while the delete was in flight
+            invalidate(token);
+        }
+        revocationListener.accept(token);
+    }
+
+    /**
+     * Sets a callback told about every token deleted through this DAO, so holders of
+     * long-lived sessions can drop them straight away
+     */
+    public void setRevocationListener(Consumer<String> listener) {
+        revocationListener = listener;
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        synchronized (cache) {
+            deletions.incrementAndGet();
+            cache.clear();
+        }
+        backing.clear();
+    }
+
+    @Override
+    public int getSize() throws DataAccessException {
+        return backing.getSize();
+    }
+
+    private void remember(String token, AuthData auth) {
+        long ttl = (auth == null) ? negativeTtlNanos : positiveTtlNanos;
+        synchronized (cache) {cache.put(token, new Entry(auth, System.nanoTime() + ttl));}
+    }
+
+    private void invalidate(String token) {
+        synchronized (cache) {
+            deletions.incrementAndGet();
+            cache.remove(token);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package dataaccess;
+
+import chess.ChessGame;
+
+import dataaccess.exceptions.DataAccessException;
+import dataaccess.interfaces.GameDAO;
+
+import model.GameData;
+import request.ListRequest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind cache in front of another GameDAO. Games are read from memory
+ * once loaded, and updateGame only records the latest version of a game; dirty
+ * games are written to the backing DAO in one batch every flush interval, so
+ * several updates to a game between flushes cost a single write.
+ * <p>
+ * The cache keeps its own copy of each game: getGame hands out a copy and
+ * updateGame stores one, so callers can never mutate a cached game in place.
+ * Creating games and appending moves go straight through, so the move log is
+ * always durable; an appended move is also played on the cached copy. The
+ * snapshot row of a game can lag by at most the flush interval. Finished games
+ * are flushed immediately and then dropped from the cache, and games nobody has
+ * read or written for the idle timeout are dropped once they are clean.
+ * <p>
+ * If a background flush fails, the games stay dirty and the next updateGame
+ * retries the flush and throws its error. Call {@link #close()} on shutdown to
+ * flush anything still pending.
+ */
+public class CachingGameDAO implements GameDAO {
+    //cached copy of a game, never handed out, and when it was last used
+    private static final class Cached {
+        private final GameData game;
+        private volatile long lastUsed = System.nanoTime();
+
+        private Cached(GameData game) {
+            this.game = game;
+        }
+    }
+
+    private final GameDAO backing;
+    private final long idleNanos;
+    private final ConcurrentHashMap<Integer, Cached> games = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, GameData> dirty = new ConcurrentHashMap<>();
+    //read-modify-write of one game's cache entry happens under its stripe
+    private final ReentrantLock[] locks = new ReentrantLock[64];
+    private final ScheduledExecutorService flusher;
+    private volatile DataAccessException flushFailure;
+
+    public CachingGameDAO(GameDAO backing, long flushIntervalMillis, long idleMillis) {
+        this.backing = backing;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        for (int i = 0; i < locks.length; i++) {locks[i] = new ReentrantLock();}
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::scheduledFlush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void createGame(GameData game) throws DataAccessException {
+        backing.createGame(game);
+        games.put(game.gameID(), new Cached(copy(game.gameID(), game)));
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        Cached cached = games.get(gameID);
+        if (cached == null) {
+            cached = load(gameID);
+            if (cached == null) {return null;}
+        }
+        cached.lastUsed = System.nanoTime();
+        return copy(gameID, cached.game);
+    }
+
+    //under the stripe, so a move appended while the game is read cannot be missed by the cached copy
+    private Cached load(int gameID) throws DataAccessException {
+        ReentrantLock lock = lockFor(gameID);
+        lock.lock();
+        try {
+            Cached cached = games.get(gameID);
+            if (cached != null) {return cached;}
+            GameData game = backing.getGame(gameID);
+            if (game == null) {return null;}
+            cached = new Cached(copy(gameID, game));
+            games.put(gameID, cached);
+            return cached;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public GameData[] listGames() throws DataAccessException {
+        flush();
+        return backing.listGames();
+    }
+
+    @Override
+    public GameData[] listGames(ListRequest query) throws DataAccessException {
+        flush();
+        return backing.listGames(query);
+    }
+
+    @Override
+    public void updateGame(int gameID, GameData game) throws DataAccessException {
+        //callers keep mutating their game, so the cache and the pending write share a copy of it
+        GameData snapshot = copy(gameID, game);
+        Cached cached = new Cached(snapshot);
+        ReentrantLock lock = lockFor(gameID);
+        lock.lock();
+        try {
+            games.put(gameID, cached);
+            dirty.put(gameID, snapshot);
+        } finally {
+            lock.unlock();
+        }
+        if (game.game().getTeamTurn() == ChessGame.TeamColor.FINISHED) {
+            flush();
+            games.remove(gameID, cached);
+        } else if (flushFailure != null) {
+            flush();
+        }
+    }
+
+    //atomic with respect to other changes and appended moves of the same game
+    @Override
+    public GameData updateGame(int gameID, GameChange change) throws DataAccessException {
+        ReentrantLock lock = lockFor(gameID);
+        lock.lock();
+        try {
+            return GameDAO.super.updateGame(gameID, change);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateGames(Collection<GameData> updates) throws DataAccessException {
+        for (GameData game : updates) {updateGame(game.gameID(), game);}
+    }
+
+    @Override
+    public void appendMove(int gameID, int ply, int move) throws DataAccessException {
+        backing.appendMove(gameID, ply, move);
+        ReentrantLock lock = lockFor(gameID);
+        lock.lock();
+        try {
+            Cached cached = games.get(gameID);
+            if (cached == null) {return;}
+            int cachedPly = cached.game.game().getPly();
+            //loaded from the backing DAO after the move reached it
+            if (cachedPly >= ply) {return;}
+            if (cachedPly + 1 == ply) {
+                GameData played = copy(gameID, cached.game);
+                played.game().makeMove(move);
+                games.put(gameID, new Cached(played));
+                return;
+            }
+            //the cached copy is not the position this move was played from; reload it from the log
+            if (dirty.containsKey(gameID)) {flush();}
+            games.remove(gameID, cached);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int[] loadMoves(int gameID, int sincePly) throws DataAccessException {
+        return backing.loadMoves(gameID, sincePly);
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        dirty.clear();
+        games.clear();
+        flushFailure = null;
+        backing.clear();
+    }
+
+    @Override
+    public int allocateID() throws DataAccessException {
+        return backing.allocateID();
+    }
+
+    @Override
+    public int getLastID() throws DataAccessException {
+        return backing.getLastID();
+    }
+
+    @Override
+    public int getSize() throws DataAccessException {
+        return backing.getSize();
+    }
+
+    /**
+     * Writes every dirty game to the backing DAO in one batch. Games that fail to
+     * write stay dirty unless a newer version has replaced them in the meantime.
+     */
+    public synchronized void flush() throws DataAccessException {
+        if (dirty.isEmpty()) {return;}
+        ArrayList<GameData> pending = new ArrayList<>();
+        for (Map.Entry<Integer, GameData> entry : dirty.entrySet()) {
+            if (dirty.remove(entry.getKey(), entry.getValue())) {pending.add(entry.getValue());}
+        }
+        try {
+            backing.updateGames(pending);
+            flushFailure = null;
+        } catch (DataAccessException ex) {
+            for (GameData game : pending) {dirty.putIfAbsent(game.gameID(), game);}
+            flushFailure = ex;
+            throw ex;
+        }
+    }
+
+    /**
+     * Stops the background flush and writes whatever is still pending
+     */
+    public void close() throws DataAccessException {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    //a failure is kept in flushFailure and reported by the next updateGame
+    private void scheduledFlush() {
+        try {
+            flush();
+        } catch (DataAccessException ex) {
+            return;
+        }
+        evictIdle();
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        for (Map.Entry<Integer, Cached> entry : games.entrySet()) {
+            Cached cached = entry.getValue();
+            if (now - cached.lastUsed > idleNanos && !dirty.containsKey(entry.getKey())) {
+                games.remove(entry.getKey(), cached);
+            }
+        }
+    }
+
+    private ReentrantLock lockFor(int gameID) {
+        return locks[Math.floorMod(gameID, locks.length)];
+    }
+
+    private static GameData copy(int gameID, GameData game) {
+        return new GameData(gameID, game.whiteUsername(), game.blackUsername(), game.gameName(), new ChessGame(game.game()));
+    }
+}
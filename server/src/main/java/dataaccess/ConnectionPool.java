@@ -0,0 +1,224 @@
+package dataaccess;
+
+import dataaccess.exceptions.DataAccessException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of JDBC connections to one database. Connections handed out are
+ * proxies: closing one returns the underlying connection to the pool (rolling back
+ * anything left uncommitted and closing statements that were left open) instead
+ * of closing the socket.
+ * <p>
+ * Idle connections are reused newest first and closed once they sit idle longer
+ * than the idle timeout. Only a connection that has been idle longer than the
+ * validation threshold is checked with {@link Connection#isValid} (a round trip)
+ * before being handed out; one that fails with a connection-level error while
+ * borrowed is closed instead of being returned. Borrowers wait up to the borrow
+ * timeout when every connection is in use.
+ */
+public class ConnectionPool {
+
+    /**
+     * Snapshot of the pool's counters
+     *
+     * @param active          connections currently borrowed
+     * @param idle            connections waiting in the pool
+     * @param borrows         connections handed out so far
+     * @param created         physical connections opened so far
+     * @param averageWaitMillis mean time spent waiting for a free slot
+     * @param maxWaitMillis   longest time spent waiting for a free slot
+     */
+    public record Stats(int active, int idle, long borrows, long created, double averageWaitMillis, double maxWaitMillis) {}
+
+    private record Idle(Connection connection, long since) {}
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String catalog;
+    private final int maxSize;
+    private final long idleTimeoutNanos;
+    private final long borrowTimeoutMillis;
+    private final int validationTimeoutSeconds;
+    private final long validateAfterNanos;
+
+    private final Semaphore slots;
+    private final ArrayDeque<Idle> idle = new ArrayDeque<>();
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, String username, String password, String catalog, int maxSize,
+                          long idleTimeoutMillis, long borrowTimeoutMillis, int validationTimeoutSeconds, long validateAfterMillis) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.catalog = catalog;
+        this.maxSize = maxSize;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.validateAfterNanos = TimeUnit.MILLISECONDS.toNanos(validateAfterMillis);
+        this.slots = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Borrows a connection; close it to give it back
+     */
+    public Connection getConnection() throws DataAccessException {
+        if (closed) {throw new DataAccessException("Connection pool is closed");}
+        long start = System.nanoTime();
+        try {
+            if (!slots.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new DataAccessException(String.format("Timed out after %d ms waiting for a database connection", borrowTimeoutMillis));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted waiting for a database connection", ex);
+        }
+        long waited = System.nanoTime() - start;
+        waitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        borrows.incrementAndGet();
+        try {
+            return wrap(takeIdle());
+        } catch (SQLException | RuntimeException ex) {
+            slots.release();
+            throw new DataAccessException("failed to get connection", ex);
+        }
+    }
+
+    public Stats getStats() {
+        int idleCount;
+        synchronized (idle) {idleCount = idle.size();}
+        long count = borrows.get();
+        return new Stats(maxSize - slots.availablePermits(), idleCount, count, created.get(),
+                (count == 0) ? 0 : waitNanos.get() / 1e6 / count, maxWaitNanos.get() / 1e6);
+    }
+
+    /**
+     * Closes every idle connection and refuses further borrows. Borrowed connections
+     * are closed as they are returned.
+     */
+    public void close() {
+        closed = true;
+        synchronized (idle) {
+            for (Idle entry : idle) {quietlyClose(entry.connection());}
+            idle.clear();
+        }
+    }
+
+    private Connection takeIdle() throws SQLException {
+        while (true) {
+            Idle entry;
+            synchronized (idle) {
+                evictExpired();
+                entry = idle.pollFirst();
+            }
+            if (entry == null) {break;}
+            //recently used connections are trusted; a dead one surfaces as an error and is dropped on return
+            if (System.nanoTime() - entry.since() < validateAfterNanos) {return entry.connection();}
+            if (entry.connection().isValid(validationTimeoutSeconds)) {return entry.connection();}
+            quietlyClose(entry.connection());
+        }
+        Connection connection = DriverManager.getConnection(url, username, password);
+        connection.setCatalog(catalog);
+        created.incrementAndGet();
+        return connection;
+    }
+
+    //idle connections are pushed at the front, so the stalest ones are at the back
+    private void evictExpired() {
+        long now = System.nanoTime();
+        Iterator<Idle> oldest = idle.descendingIterator();
+        while (oldest.hasNext()) {
+            Idle entry = oldest.next();
+            if (now - entry.since() < idleTimeoutNanos) {break;}
+            oldest.remove();
+            quietlyClose(entry.connection());
+        }
+    }
+
+    private void giveBack(Connection connection, ArrayList<Statement> statements, boolean broken) {
+        try {
+            for (Statement statement : statements) {quietlyClose(statement);}
+            if (!closed && !broken && !connection.isClosed()) {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                synchronized (idle) {idle.addFirst(new Idle(connection, System.nanoTime()));}
+            } else {
+                quietlyClose(connection);
+            }
+        } catch (SQLException ex) {
+            quietlyClose(connection);
+        } finally {
+            slots.release();
+        }
+    }
+
+    private Connection wrap(Connection connection) {
+        ArrayList<Statement> statements = new ArrayList<>();
+        boolean[] returned = {false};
+        boolean[] broken = {false};
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            if (!returned[0]) {
+                                returned[0] = true;
+                                giveBack(connection, statements, broken[0]);
+                            }
+                            return null;
+                        }
+                        case "isClosed" -> {
+                            if (returned[0]) {return true;}
+                        }
+                        case "equals" -> {return proxy == args[0];}
+                        case "hashCode" -> {return System.identityHashCode(proxy);}
+                        default -> {
+                            if (returned[0]) {throw new SQLException("Connection has been returned to the pool");}
+                        }
+                    }
+                    try {
+                        Object result = method.invoke(connection, args);
+                        if (result instanceof Statement statement) {statements.add(statement);}
+                        return result;
+                    } catch (InvocationTargetException ex) {
+                        if (isConnectionFailure(ex.getCause())) {broken[0] = true;}
+                        throw ex.getCause();
+                    }
+                });
+    }
+
+    //SQLState class 08 is a connection exception; the driver also reports lost links as recoverable
+    private static boolean isConnectionFailure(Throwable failure) {
+        if (failure instanceof SQLRecoverableException || failure instanceof SQLNonTransientConnectionException) {return true;}
+        return failure instanceof SQLException ex && ex.getSQLState() != null && ex.getSQLState().startsWith("08");
+    }
+
+    private static void quietlyClose(AutoCloseable resource) {
+        try {
+            resource.close();
+        } catch (Exception ignored) {
+            //already broken, nothing more to do
+        }
+    }
+}
@@ -10,6 +10,9 @@ public class DatabaseManager {
     private static String dbUsername;
     private static String dbPassword;
     private static String connectionUrl;
+    private static boolean binaryGames;
+    private static Properties poolProperties;
+    private static ConnectionPool pool;
 
     /*
      * Load the database information for the db.properties file.
@@ -32,9 +35,10 @@ public class DatabaseManager {
     }
 
     /**
-     * Create a connection to the database and sets the catalog based upon the
-     * properties specified in db.properties. Connections to the database should
-     * be short-lived, and you must close the connection when you are done with it.
+     * Borrow a connection to the database from the pool, with the catalog set based
+     * upon the properties specified in db.properties. Connections to the database should
+     * be short-lived, and you must close the connection when you are done with it;
+     * closing it returns it to the pool.
      * The easiest way to do that is with a try-with-resource block.
      * <br/>
      * <code>
@@ -44,14 +48,47 @@ public class DatabaseManager {
      * </code>
      */
     static Connection getConnection() throws DataAccessException {
-        try {
-            //do not wrap the following line with a try-with-resources
-            var conn = DriverManager.getConnection(connectionUrl, dbUsername, dbPassword);
-            conn.setCatalog(databaseName);
-            return conn;
-        } catch (SQLException ex) {
-            throw new DataAccessException("failed to get connection", ex);
+        //do not wrap the following line with a try-with-resources
+        return pool().getConnection();
+    }
+
+    /**
+     * @return active/idle counts and borrow wait times of the connection pool
+     */
+    public static ConnectionPool.Stats getPoolStats() {
+        return pool().getStats();
+    }
+
+    /**
+     * Closes the pool's connections, for shutdown. Connections still borrowed are
+     * closed as they are returned; the next borrow opens a fresh pool, so a server
+     * can be started again in the same JVM.
+     */
+    public static synchronized void closePool() {
+        if (pool == null) {return;}
+        pool.close();
+        pool = null;
+    }
+
+    private static synchronized ConnectionPool pool() {
+        if (pool == null) {
+            pool = new ConnectionPool(connectionUrl, dbUsername, dbPassword, databaseName,
+                    Integer.parseInt(poolProperties.getProperty("db.pool.size", "10")),
+                    Long.parseLong(poolProperties.getProperty("db.pool.idleTimeoutMs", "300000")),
+                    Long.parseLong(poolProperties.getProperty("db.pool.borrowTimeoutMs", "5000")),
+                    Integer.parseInt(poolProperties.getProperty("db.pool.validationTimeoutSec", "2")),
+                    Long.parseLong(poolProperties.getProperty("db.pool.validateAfterMs", "30000")));
         }
+        return pool;
+    }
+
+    /**
+     * Whether newly created game tables store games with {@link chess.positioning.GameCodec}
+     * in a binary column instead of as JSON, set by {@code db.gameFormat=binary}.
+     * Existing tables keep the format they were created with.
+     */
+    static boolean binaryGames() {
+        return binaryGames;
     }
 
     private static void loadPropertiesFromResources() {
@@ -71,9 +108,17 @@ public class DatabaseManager {
         databaseName = props.getProperty("db.name");
         dbUsername = props.getProperty("db.user");
         dbPassword = props.getProperty("db.password");
+        binaryGames = "binary".equalsIgnoreCase(props.getProperty("db.gameFormat", "json"));
 
         var host = props.getProperty("db.host");
         var port = Integer.parseInt(props.getProperty("db.port"));
-        connectionUrl = String.format("jdbc:mysql://%s:%d", host, port);
+        //the driver keeps a per-connection cache of server-side prepared statements, which
+        //pooled connections reuse across DAO calls; batched writes are sent as one round trip
+        int statementCache = Integer.parseInt(props.getProperty("db.statementCacheSize", "64"));
+        connectionUrl = String.format("jdbc:mysql://%s:%d?cachePrepStmts=%b&useServerPrepStmts=true&prepStmtCacheSize=%d"
+                + "&prepStmtCacheSqlLimit=2048&rewriteBatchedStatements=true", host, port, statementCache > 0, statementCache);
+
+        closePool();
+        poolProperties = props;
     }
 }
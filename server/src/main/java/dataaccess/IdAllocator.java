@@ -0,0 +1,34 @@
+package dataaccess;
+
+import dataaccess.exceptions.DataAccessException;
+
+/**
+ * Hands out game IDs from blocks reserved ahead of time, so creating a game only
+ * pays for a reservation once per block. Blocks come from a {@link Reserver} that
+ * never returns overlapping ranges, so IDs stay unique without probing for free
+ * ones.
+ */
+public class IdAllocator {
+    public interface Reserver {
+        //reserves size consecutive IDs and returns the first
+        int reserve(int size) throws DataAccessException;
+    }
+
+    private final Reserver reserver;
+    private final int blockSize;
+    private int next;
+    private int end;
+
+    public IdAllocator(Reserver reserver, int blockSize) {
+        this.reserver = reserver;
+        this.blockSize = blockSize;
+    }
+
+    public synchronized int next() throws DataAccessException {
+        if (next == end) {
+            next = reserver.reserve(blockSize);
+            end = next + blockSize;
+        }
+        return next++;
+    }
+}
@@ -1,16 +1,28 @@
 package dataaccess;
 
+import chess.ChessGame;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Hashtable;
 
+import dataaccess.exceptions.DataAccessException;
 import dataaccess.interfaces.GameDAO;
 import model.GameData;
+import request.ListRequest;
 
 public class MemoryGameDAO implements GameDAO {
     private Hashtable<Integer, GameData> gameDB;
+    private Hashtable<Integer, ArrayList<Integer>> moveDB;
     private int lastID;
+    //highest ID handed out in a block or used by createGame; blocks start above it
+    private int reservedID;
+    private final IdAllocator ids = new IdAllocator(this::reserve, 100);
 
     public MemoryGameDAO() {
         gameDB = new Hashtable<>();
+        moveDB = new Hashtable<>();
         lastID = 0;
     }
 
@@ -18,6 +30,24 @@ public class MemoryGameDAO implements GameDAO {
     public void createGame(GameData game) {
         gameDB.put(game.gameID(), game);
         lastID = game.gameID();
+        synchronized (ids) {reservedID = Math.max(reservedID, game.gameID());}
+    }
+
+    @Override
+    public int allocateID() throws DataAccessException {
+        int id;
+        do {
+            id = ids.next();
+        } while (gameDB.containsKey(id));
+        return id;
+    }
+
+    private int reserve(int size) {
+        synchronized (ids) {
+            int first = reservedID + 1;
+            reservedID += size;
+            return first;
+        }
     }
 
     @Override
@@ -30,14 +60,54 @@ public class MemoryGameDAO implements GameDAO {
         return gameDB.values().toArray(new GameData[0]);
     }
 
+    @Override
+    public GameData[] listGames(ListRequest query) {
+        int after = (query.cursor() == null) ? Integer.MIN_VALUE : query.cursor();
+        boolean finished = ListRequest.FINISHED.equals(query.status());
+        return gameDB.values().stream()
+                .filter(g -> g.gameID() > after)
+                .filter(g -> !query.openOnly() || g.whiteUsername() == null || g.blackUsername() == null)
+                .filter(g -> query.player() == null || query.player().equals(g.whiteUsername()) || query.player().equals(g.blackUsername()))
+                .filter(g -> query.status() == null || (g.game().getTeamTurn() == ChessGame.TeamColor.FINISHED) == finished)
+                .sorted(Comparator.comparingInt(GameData::gameID))
+                .limit((query.limit() == null) ? Long.MAX_VALUE : query.limit())
+                .map(g -> new GameData(g.gameID(), g.whiteUsername(), g.blackUsername(), g.gameName(), null))
+                .toArray(GameData[]::new);
+    }
+
     @Override
     public void updateGame(int gameID, GameData game) {
         gameDB.replace(gameID, game);
     }
 
+    @Override
+    public synchronized GameData updateGame(int gameID, GameChange change) throws DataAccessException {
+        return GameDAO.super.updateGame(gameID, change);
+    }
+
+    @Override
+    public void updateGames(Collection<GameData> games) {
+        for (GameData game : games) {gameDB.replace(game.gameID(), game);}
+    }
+
+    //games are held by reference and already carry their moves, so the log is only kept for loadMoves
+    @Override
+    public void appendMove(int gameID, int ply, int move) throws DataAccessException {
+        ArrayList<Integer> moves = moveDB.computeIfAbsent(gameID, id -> new ArrayList<>());
+        if (ply != moves.size() + 1) {throw new DataAccessException(String.format("Move %d is out of order", ply));}
+        moves.add(move);
+    }
+
+    @Override
+    public int[] loadMoves(int gameID, int sincePly) {
+        ArrayList<Integer> moves = moveDB.getOrDefault(gameID, new ArrayList<>());
+        return moves.subList(Math.min(sincePly, moves.size()), moves.size()).stream().mapToInt(Integer::intValue).toArray();
+    }
+
     @Override
     public void clear() {
         gameDB = new Hashtable<>();
+        moveDB = new Hashtable<>();
         lastID = 0;
     }
 
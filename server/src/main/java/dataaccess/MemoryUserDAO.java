@@ -6,7 +6,6 @@ import dataaccess.exceptions.AlreadyTakenException;
 import dataaccess.exceptions.DataAccessException;
 import dataaccess.interfaces.UserDAO;
 import model.UserData;
-import org.mindrot.jbcrypt.BCrypt;
 
 public class MemoryUserDAO implements UserDAO {
     private Hashtable<String, UserData> userDB;
@@ -37,6 +36,6 @@ public class MemoryUserDAO implements UserDAO {
     }
 
     private String protect(String pass) {
-        return BCrypt.hashpw(pass, BCrypt.gensalt());
+        return PasswordHasher.hash(pass);
     }
 }
@@ -1,9 +1,10 @@
 package dataaccess;
 
 import chess.ChessGame;
+import chess.positioning.ChessJson;
+import chess.positioning.GameCodec;
 
 import com.google.gson.Gson;
-import org.mindrot.jbcrypt.BCrypt;
 
 import dataaccess.exceptions.AlreadyTakenException;
 import dataaccess.exceptions.DataAccessException;
@@ -17,20 +18,23 @@ import model.AuthData;
 import model.GameData;
 import model.UserData;
 
+import request.ListRequest;
+
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
 
 import static java.sql.Types.NULL;
 
 public class MySqlDAO {
-    private int lastPID;
     private final Gson serializer;
 
     public MySqlDAO() {
-        lastPID = 0;
-        serializer = new Gson();
+        serializer = ChessJson.gson();
     }
 
     public class MySqlUserDAO extends MySqlDAO implements UserDAO {
@@ -177,6 +181,19 @@ public class MySqlDAO {
     }
 
     public class MySqlGameDAO extends MySqlDAO implements GameDAO {
+        //the game row is a snapshot taken at its ply; later moves are replayed from game_moves on read
+        private static final String SELECT_GAMES = """
+                SELECT g.gameID, g.wUser, g.bUser, g.gName, g.gData, g.ply, m.move FROM game g
+                LEFT JOIN game_moves m ON m.gameID = g.gameID AND m.ply > g.ply
+                """;
+        private static final String UPDATE_GAME = "UPDATE game SET wUser=(?), bUser=(?), gName=(?), gData=(?), ply=(?), finished=(?) WHERE gameID=(?);";
+        //metadata only, so listing never reads or parses gData
+        private static final String LIST_GAMES = "SELECT gameID, wUser, bUser, gName FROM game WHERE gameID > ?";
+        //game IDs reserved per round trip to the game_seq row
+        private static final int ID_BLOCK = 20;
+        //true when gData is a binary column holding GameCodec bytes rather than JSON
+        private final boolean binary;
+        private final IdAllocator ids = new IdAllocator(this::reserveIDs, ID_BLOCK);
 
         public MySqlGameDAO() throws DataAccessException {
             super();
@@ -188,22 +205,69 @@ public class MySqlDAO {
               wUser varchar(50),
               bUser varchar(256),
               gName varchar(256) NOT NULL,
-              gData JSON NOT NULL,
+              gData %s NOT NULL,
+              ply int NOT NULL DEFAULT 0,
+              finished boolean NOT NULL DEFAULT FALSE,
               PRIMARY KEY (id),
-              INDEX (gameID)
+              INDEX (gameID),
+              INDEX (wUser),
+              INDEX (bUser)
+            );
+            """.formatted(DatabaseManager.binaryGames() ? "VARBINARY(80)" : "JSON"),
+            """
+            CREATE TABLE IF NOT EXISTS game_moves (
+              gameID int NOT NULL,
+              ply int NOT NULL,
+              move smallint NOT NULL,
+              PRIMARY KEY (gameID, ply)
+            );
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS game_seq (
+              name varchar(16) NOT NULL,
+              last_id int NOT NULL,
+              PRIMARY KEY (name)
             );
+            """,
+            //start above any gameID already in use (older servers picked them at random)
+            """
+            INSERT IGNORE INTO game_seq (name, last_id) SELECT 'game', COALESCE(MAX(gameID), 0) FROM game;
             """
             };
             configureDatabase(createGameTableStatement);
+            binary = inspectGameTable();
         }
 
         public void createGame(GameData game) throws DataAccessException {
-            String create = "INSERT INTO game (gameID, wUser, bUser, gName, gData) VALUES (?,?,?,?,?);";
-            sendFlexCommand(create, game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(), game.game());
+            String create = "INSERT INTO game (gameID, wUser, bUser, gName, gData, ply, finished) VALUES (?,?,?,?,?,?,?);";
+            sendFlexCommand(create, game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(),
+                    storedGame(game.game()), game.game().getPly(), isFinished(game));
+        }
+
+        public int allocateID() throws DataAccessException {
+            return ids.next();
+        }
+
+        //moves the sequence row forward by a whole block in one statement; LAST_INSERT_ID(expr)
+        //hands the new value back as the generated key, so concurrent servers get disjoint blocks
+        private int reserveIDs(int size) throws DataAccessException {
+            String reserve = "UPDATE game_seq SET last_id = LAST_INSERT_ID(last_id + ?) WHERE name = 'game';";
+            try (var conn = DatabaseManager.getConnection()) {
+                try (var prep = conn.prepareStatement(reserve, Statement.RETURN_GENERATED_KEYS)) {
+                    prep.setInt(1, size);
+                    if (prep.executeUpdate() != 1) {throw new DataAccessException("Game ID sequence is missing");}
+                    try (var rs = prep.getGeneratedKeys()) {
+                        if (!rs.next()) {throw new DataAccessException("Game ID sequence returned no value");}
+                        return rs.getInt(1) - size + 1;
+                    }
+                }
+            } catch (SQLException ex) {
+                throw new DataAccessException(String.format("Unable to access database: %s", ex.getMessage()));
+            }
         }
 
         public GameData getGame(int gameID) throws DataAccessException {
-            String get = "SELECT gameID, wUser, bUser, gName, gData FROM game WHERE gameID=?;";
+            String get = SELECT_GAMES + "WHERE g.gameID=? ORDER BY m.ply;";
             try (var conn = DatabaseManager.getConnection()) {
                 try (var prep = conn.prepareStatement(get)) {
                     prep.setInt(1, gameID);
@@ -220,7 +284,7 @@ public class MySqlDAO {
         }
 
         public GameData[] listGames() throws DataAccessException {
-            String get = "SELECT gameID, wUser, bUser, gName, gData FROM game";
+            String get = SELECT_GAMES + "ORDER BY g.gameID, m.ply;";
             try (var conn = DatabaseManager.getConnection()) {
                 try (var prep = conn.prepareStatement(get)) {
                     return analyzeGetResponse(prep);
@@ -230,23 +294,107 @@ public class MySqlDAO {
             }
         }
 
+        public GameData[] listGames(ListRequest query) throws DataAccessException {
+            StringBuilder sql = new StringBuilder(LIST_GAMES);
+            ArrayList<Object> params = new ArrayList<>();
+            params.add((query.cursor() == null) ? Integer.MIN_VALUE : query.cursor());
+            if (query.openOnly()) {sql.append(" AND (wUser IS NULL OR bUser IS NULL)");}
+            if (query.player() != null) {
+                sql.append(" AND (wUser = ? OR bUser = ?)");
+                params.add(query.player());
+                params.add(query.player());
+            }
+            if (query.status() != null) {
+                sql.append(" AND finished = ?");
+                params.add(ListRequest.FINISHED.equals(query.status()));
+            }
+            sql.append(" ORDER BY gameID");
+            if (query.limit() != null) {
+                sql.append(" LIMIT ?");
+                params.add(query.limit());
+            }
+            try (var conn = DatabaseManager.getConnection()) {
+                try (var prep = conn.prepareStatement(sql.append(';').toString())) {
+                    for (int i = 0; i < params.size(); i++) {prep.setObject(i + 1, params.get(i));}
+                    ArrayList<GameData> games = new ArrayList<>();
+                    try (var rs = prep.executeQuery()) {
+                        while (rs.next()) {
+                            games.add(new GameData(rs.getInt("gameID"), rs.getString("wUser"), rs.getString("bUser"),
+                                    rs.getString("gName"), null));
+                        }
+                    }
+                    return games.toArray(new GameData[0]);
+                }
+            } catch (SQLException ex) {
+                throw new DataAccessException(String.format("Unable to access database: %s", ex.getMessage()));
+            }
+        }
+
         public void updateGame(int gameID, GameData game) throws DataAccessException {
-            String get = "UPDATE game SET wUser=(?), bUser=(?), gName=(?), gData=(?) WHERE gameID=(?);";
             try (var conn = DatabaseManager.getConnection()) {
-                try (var prep = conn.prepareStatement(get)) {
-                    prep.setString(1, game.whiteUsername());
-                    prep.setString(2, game.blackUsername());
-                    prep.setString(3, game.gameName());
-                    prep.setString(4, serializer.toJson(game.game()));
-                    prep.setInt(5, gameID);
-                    prep.executeUpdate();
-                    var success = prep.executeQuery("SELECT ROW_COUNT();");
-                    if (!success.next()) {
-                        throw new DataAccessException("Unable to access database");
+                try (var prep = conn.prepareStatement(UPDATE_GAME)) {
+                    bindUpdate(prep, gameID, game);
+                    int count = prep.executeUpdate();
+                    if (count != 1) {
+                        throw new DataAccessException(String.format("Single update failed in database: %s", count));
+                    }
+                }
+            } catch (SQLException ex) {
+                throw new DataAccessException(String.format("Unable to access database: %s", ex.getMessage()));
+            }
+        }
+
+        @Override
+        public void updateGames(Collection<GameData> games) throws DataAccessException {
+            if (games.isEmpty()) {return;}
+            try (var conn = DatabaseManager.getConnection()) {
+                conn.setAutoCommit(false);
+                try (var prep = conn.prepareStatement(UPDATE_GAME)) {
+                    for (GameData game : games) {
+                        bindUpdate(prep, game.gameID(), game);
+                        prep.addBatch();
                     }
-                    if (success.getInt(1) != 1) {
-                        throw new DataAccessException(String.format("Single update failed in database: %s", success.getInt(1)));
+                    for (int count : prep.executeBatch()) {
+                        if (count != 1 && count != Statement.SUCCESS_NO_INFO) {
+                            throw new DataAccessException(String.format("Batched update failed in database: %s", count));
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException ex) {
+                throw new DataAccessException(String.format("Unable to access database: %s", ex.getMessage()));
+            }
+        }
+
+        @Override
+        public void appendMove(int gameID, int ply, int move) throws DataAccessException {
+            String append = "INSERT INTO game_moves (gameID, ply, move) VALUES (?,?,?);";
+            try (var conn = DatabaseManager.getConnection()) {
+                try (var prep = conn.prepareStatement(append)) {
+                    prep.setInt(1, gameID);
+                    prep.setInt(2, ply);
+                    prep.setInt(3, move);
+                    prep.executeUpdate();
+                }
+            } catch (SQLException ex) {
+                throw new DataAccessException(String.format("Unable to update database: %s", ex.getMessage()));
+            }
+        }
+
+        @Override
+        public int[] loadMoves(int gameID, int sincePly) throws DataAccessException {
+            String load = "SELECT move FROM game_moves WHERE gameID=? AND ply>? ORDER BY ply;";
+            try (var conn = DatabaseManager.getConnection()) {
+                try (var prep = conn.prepareStatement(load)) {
+                    prep.setInt(1, gameID);
+                    prep.setInt(2, sincePly);
+                    ArrayList<Integer> moves = new ArrayList<>();
+                    try (var rs = prep.executeQuery()) {
+                        while (rs.next()) {
+                            moves.add(rs.getInt(1));
+                        }
                     }
+                    return moves.stream().mapToInt(Integer::intValue).toArray();
                 }
             } catch (SQLException ex) {
                 throw new DataAccessException(String.format("Unable to access database: %s", ex.getMessage()));
@@ -254,11 +402,9 @@ public class MySqlDAO {
         }
 
         public int getLastID() throws DataAccessException {
-            String last = "SELECT gameID from game WHERE id=(?);";
+            String last = "SELECT gameID from game ORDER BY id DESC LIMIT 1;";
             try (var conn = DatabaseManager.getConnection()) {
-                try (var prep = conn.prepareStatement(last)) {
-                    prep.setInt(1, lastPID);
-                    var rs = prep.executeQuery();
+                try (var prep = conn.prepareStatement(last); var rs = prep.executeQuery()) {
                     if (rs.next()) {
                         return rs.getInt(1);
                     } else {
@@ -273,6 +419,7 @@ public class MySqlDAO {
         @Override
         public void clear() throws DataAccessException {
             clearHelper("game");
+            clearHelper("game_moves");
         }
 
         @Override
@@ -280,20 +427,89 @@ public class MySqlDAO {
             return getSizeHelper("game");
         }
 
+        //rows come one per replayed move (or one with a null move), grouped by game in ply order
         private GameData[] analyzeGetResponse(PreparedStatement prep) throws SQLException {
             ArrayList<GameData> games = new ArrayList<>();
+            GameData last = null;
             try (var rs = prep.executeQuery()) {
                 while (rs.next()) {
-                    games.add(readGame(rs));
+                    if (last == null || last.gameID() != rs.getInt("gameID")) {
+                        last = readGame(rs);
+                        games.add(last);
+                    }
+                    int move = rs.getInt("move");
+                    if (!rs.wasNull()) {
+                        last.game().makeMove(move);
+                    }
                 }
             }
             return games.toArray(new GameData[0]);
         }
 
         private GameData readGame(ResultSet rs) throws SQLException {
-            ChessGame game = serializer.fromJson(rs.getString("gData"), ChessGame.class);
+            ChessGame game = binary ? GameCodec.decode(rs.getBytes("gData")) : serializer.fromJson(rs.getString("gData"), ChessGame.class);
+            game.setPly(rs.getInt("ply"));
             return new GameData(rs.getInt("gameID"), rs.getString("wUser"), rs.getString("bUser"), rs.getString("gName"), game);
         }
+
+        private void bindUpdate(PreparedStatement prep, int gameID, GameData game) throws SQLException {
+            prep.setString(1, game.whiteUsername());
+            prep.setString(2, game.blackUsername());
+            prep.setString(3, game.gameName());
+            if (binary) {prep.setBytes(4, GameCodec.encode(game.game()));}
+            else {prep.setString(4, serializer.toJson(game.game()));}
+            prep.setInt(5, game.game().getPly());
+            prep.setBoolean(6, isFinished(game));
+            prep.setInt(7, gameID);
+        }
+
+        private static boolean isFinished(GameData game) {
+            return game.game().getTeamTurn() == ChessGame.TeamColor.FINISHED;
+        }
+
+        private Object storedGame(ChessGame game) {
+            return binary ? GameCodec.encode(game) : serializer.toJson(game);
+        }
+
+        //reports whether gData is binary, adding the ply and finished columns to game tables created before them
+        private boolean inspectGameTable() throws DataAccessException {
+            try (var conn = DatabaseManager.getConnection()) {
+                boolean binaryData = false;
+                boolean hasPly = false;
+                boolean hasFinished = false;
+                try (var prep = conn.prepareStatement("SELECT * FROM game LIMIT 0;"); var rs = prep.executeQuery()) {
+                    var meta = rs.getMetaData();
+                    for (int i = 1; i <= meta.getColumnCount(); i++) {
+                        int type = meta.getColumnType(i);
+                        if (meta.getColumnName(i).equalsIgnoreCase("ply")) {hasPly = true;}
+                        if (meta.getColumnName(i).equalsIgnoreCase("finished")) {hasFinished = true;}
+                        if (meta.getColumnName(i).equalsIgnoreCase("gData")) {
+                            binaryData = type == Types.BINARY || type == Types.VARBINARY || type == Types.LONGVARBINARY || type == Types.BLOB;
+                        }
+                    }
+                }
+                if (!hasPly) {
+                    try (var prep = conn.prepareStatement("ALTER TABLE game ADD COLUMN ply int NOT NULL DEFAULT 0;")) {
+                        prep.executeUpdate();
+                    }
+                }
+                if (!hasFinished) {
+                    //backfill from the stored turn: GameCodec's second byte, or teamTurn in reflective JSON
+                    String backfill = binaryData
+                            ? "UPDATE game SET finished = (ASCII(SUBSTRING(gData, 2, 1)) = 2);"
+                            : "UPDATE game SET finished = COALESCE(JSON_UNQUOTE(JSON_EXTRACT(gData, '$.teamTurn')) = 'FINISHED', FALSE);";
+                    try (var prep = conn.prepareStatement("ALTER TABLE game ADD COLUMN finished boolean NOT NULL DEFAULT FALSE;")) {
+                        prep.executeUpdate();
+                    }
+                    try (var prep = conn.prepareStatement(backfill)) {
+                        prep.executeUpdate();
+                    }
+                }
+                return binaryData;
+            } catch (SQLException ex) {
+                throw new DataAccessException(String.format("Unable to access database: %s", ex.getMessage()));
+            }
+        }
     }
 
 
@@ -343,14 +559,12 @@ public class MySqlDAO {
                     var par = params[i-1];
                     if (par instanceof String spar) {prep.setString(i, spar);}
                     else if (par instanceof Integer ipar) {prep.setInt(i, ipar);}
+                    else if (par instanceof byte[] bpar) {prep.setBytes(i, bpar);}
+                    else if (par instanceof Boolean zpar) {prep.setBoolean(i, zpar);}
                     else if (par != null) {prep.setString(i, serializer.toJson(par));}
                     else {prep.setNull(i, NULL);}
                 }
                 prep.executeUpdate();
-                var rs = prep.executeQuery("SELECT LAST_INSERT_ID()");
-                if (rs.next()) {
-                    lastPID = rs.getInt(1);
-                }
             }
             conn.commit();
         } catch (SQLException ex) {
@@ -385,6 +599,6 @@ public class MySqlDAO {
     }
 
     private String protect(String pass) {
-        return BCrypt.hashpw(pass, BCrypt.gensalt());
+        return PasswordHasher.hash(pass);
     }
 }
@@ -0,0 +1,147 @@
+package dataaccess;
+
+import dataaccess.exceptions.ServerBusyException;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs BCrypt hashing and checking on a small pool of its own, sized to the
+ * CPU, so a burst of registrations or logins cannot take every request thread.
+ * Callers wait for their result; once the queue is full further work is
+ * refused straight away with a {@link ServerBusyException} (HTTP 503).
+ * <p>
+ * Settings come from system properties: {@code server.bcrypt.cost} (work
+ * factor, default 10), {@code server.hash.threads} (default one per core) and
+ * {@code server.hash.queue} (waiting jobs, default 64). {@link #close()} stops
+ * the pool on shutdown; the next hash starts a new one.
+ */
+public final class PasswordHasher {
+
+    public record Stats(long hashes, long checks, long rejected, int queued,
+                        double averageHashMillis, double maxHashMillis, double averageCheckMillis, double maxCheckMillis) {}
+
+    private static final int COST = Integer.getInteger("server.bcrypt.cost", 10);
+    private static final int THREADS = Integer.getInteger("server.hash.threads", Runtime.getRuntime().availableProcessors());
+    private static final int QUEUE = Integer.getInteger("server.hash.queue", 64);
+    private static ThreadPoolExecutor executor;
+
+    private static final AtomicLong hashes = new AtomicLong();
+    private static final AtomicLong hashNanos = new AtomicLong();
+    private static final AtomicLong maxHashNanos = new AtomicLong();
+    private static final AtomicLong checks = new AtomicLong();
+    private static final AtomicLong checkNanos = new AtomicLong();
+    private static final AtomicLong maxCheckNanos = new AtomicLong();
+    private static final AtomicLong rejected = new AtomicLong();
+
+    private PasswordHasher() {}
+
+    /**
+     * @return BCrypt hash of the password at the configured work factor
+     * @throws ServerBusyException if the hashing queue is full
+     */
+    public static String hash(String plain) throws ServerBusyException {
+        return run(() -> {
+            long start = System.nanoTime();
+            String hashed = BCrypt.hashpw(plain, BCrypt.gensalt(COST));
+            record(hashes, hashNanos, maxHashNanos, System.nanoTime() - start);
+            return hashed;
+        });
+    }
+
+    /**
+     * @return true if the password matches the hash (whatever work factor it was made with)
+     * @throws ServerBusyException if the hashing queue is full
+     */
+    public static boolean check(String plain, String hashed) throws ServerBusyException {
+        return run(() -> {
+            long start = System.nanoTime();
+            boolean matches = BCrypt.checkpw(plain, hashed);
+            record(checks, checkNanos, maxCheckNanos, System.nanoTime() - start);
+            return matches;
+        });
+    }
+
+    /**
+     * @return counts, queue depth and time spent per hash and check
+     */
+    public static Stats getStats() {
+        long hashCount = hashes.get();
+        long checkCount = checks.get();
+        int queued;
+        synchronized (PasswordHasher.class) {queued = (executor == null) ? 0 : executor.getQueue().size();}
+        return new Stats(hashCount, checkCount, rejected.get(), queued,
+                (hashCount == 0) ? 0 : hashNanos.get() / 1e6 / hashCount, maxHashNanos.get() / 1e6,
+                (checkCount == 0) ? 0 : checkNanos.get() / 1e6 / checkCount, maxCheckNanos.get() / 1e6);
+    }
+
+    /**
+     * Lets queued work finish and stops the pool's threads
+     */
+    public static void close() {
+        ThreadPoolExecutor stopping;
+        synchronized (PasswordHasher.class) {
+            stopping = executor;
+            executor = null;
+        }
+        if (stopping == null) {return;}
+        stopping.shutdown();
+        try {
+            stopping.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static ThreadPoolExecutor newExecutor(int threads, int queue) {
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queue),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    private static synchronized ThreadPoolExecutor executor() {
+        if (executor == null) {executor = newExecutor(THREADS, QUEUE);}
+        return executor;
+    }
+
+    private static <T> T run(Callable<T> job) throws ServerBusyException {
+        return run(executor(), job);
+    }
+
+    static <T> T run(ThreadPoolExecutor pool, Callable<T> job) throws ServerBusyException {
+        Future<T> result;
+        try {
+            result = pool.submit(job);
+        } catch (RejectedExecutionException ex) {
+            rejected.incrementAndGet();
+            throw new ServerBusyException("Error: server busy, try again", ex);
+        }
+        try {
+            return result.get();
+        } catch (InterruptedException ex) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServerBusyException("Error: interrupted while hashing", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {throw cause;}
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private static void record(AtomicLong count, AtomicLong total, AtomicLong max, long nanos) {
+        count.incrementAndGet();
+        total.addAndGet(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+}
@@ -0,0 +1,8 @@
+package dataaccess.exceptions;
+
+public class ServerBusyException extends RuntimeException {
+    public ServerBusyException(String message) {
+        super(message);
+    }
+    public ServerBusyException(String message, Throwable ex) { super(message, ex); }
+}
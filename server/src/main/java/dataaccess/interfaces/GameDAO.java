@@ -2,16 +2,45 @@ package dataaccess.interfaces;
 
 import dataaccess.exceptions.DataAccessException;
 import model.GameData;
+import request.ListRequest;
+
+import java.util.Collection;
 
 public interface GameDAO {
 
+    //builds the new version of a game from the current one; null leaves the game as it is
+    interface GameChange {
+        GameData apply(GameData current) throws DataAccessException;
+    }
+
     void createGame(GameData game) throws DataAccessException;
+    //a gameID no other game has or will be given
+    int allocateID() throws DataAccessException;
     GameData getGame(int gameID) throws DataAccessException;
     GameData[] listGames() throws DataAccessException;
+    //one page of game metadata in gameID order; the games themselves are left null
+    GameData[] listGames(ListRequest query) throws DataAccessException;
 //    void updateGame(int gameID, String playerColor, String username) throws DataAccessException;
 //    void updateGame(int gameID, ChessMove move) throws DataAccessException;
     void updateGame(int gameID, GameData game) throws DataAccessException;
+    //read-modify-write of one game, returning the game as stored afterward, or null if there is no such game.
+    //This default is not atomic; DAOs that are shared between threads override it so concurrent changes are not lost
+    default GameData updateGame(int gameID, GameChange change) throws DataAccessException {
+        GameData current = getGame(gameID);
+        if (current == null) {return null;}
+        GameData next = change.apply(current);
+        if (next == null) {return current;}
+        updateGame(gameID, next);
+        return next;
+    }
+    //write several games in one round trip
+    void updateGames(Collection<GameData> games) throws DataAccessException;
+    //append one packed move (chess.positioning.Move) as the given ply; the game row stays as the last snapshot
+    void appendMove(int gameID, int ply, int move) throws DataAccessException;
+    //packed moves played after the given ply, in order
+    int[] loadMoves(int gameID, int sincePly) throws DataAccessException;
     void clear() throws DataAccessException;
+    //gameID of the most recently created game; game IDs come from allocateID, so only tests use this
     int getLastID() throws DataAccessException;
     int getSize() throws DataAccessException;
 }
@@ -3,24 +3,19 @@ package handler;
 import dataaccess.exceptions.BadRequestException;
 import dataaccess.exceptions.DataAccessException;
 
-import dataaccess.interfaces.AuthDAO;
-import dataaccess.interfaces.GameDAO;
-
 import request.CreateRequest;
 import service.Game;
 
 import result.NewGameResult;
 
 public class Create extends Handler {
-    private final GameDAO gDAO;
+    private final Game gameService;
 
-    public Create(AuthDAO authDataAcc, GameDAO gameDataAcc) {
-        super(authDataAcc);
-        gDAO = gameDataAcc;
+    public Create(Game gameService) {
+        this.gameService = gameService;
     }
 
     public String run(String authToken, String gameName) throws BadRequestException, DataAccessException {
-        var gameService = new Game(aDAO, gDAO);
         CreateRequest request = serializer.fromJson(gameName, CreateRequest.class);
         checkArguments(request);
         NewGameResult result = gameService.newGame(authToken,  request);
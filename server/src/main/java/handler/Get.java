@@ -3,23 +3,18 @@ package handler;
 import dataaccess.exceptions.BadRequestException;
 import dataaccess.exceptions.DataAccessException;
 
-import dataaccess.interfaces.AuthDAO;
-import dataaccess.interfaces.GameDAO;
-
 import request.GetRequest;
 import result.GetResult;
 import service.Game;
 
 public class Get extends Handler {
-    private final GameDAO gDAO;
+    private final Game gameService;
 
-    public Get(AuthDAO authDataAcc, GameDAO gameDataAcc) {
-        super(authDataAcc);
-        gDAO = gameDataAcc;
+    public Get(Game gameService) {
+        this.gameService = gameService;
     }
 
     public String run(String authToken, String jsonRequest) throws BadRequestException, DataAccessException {
-        var gameService = new Game(aDAO, gDAO);
         GetRequest request = serializer.fromJson(jsonRequest, GetRequest.class);
         checkArguments(request);
         GetResult result = gameService.getGame(authToken, request);
@@ -1,14 +1,16 @@
 package handler;
 
+import chess.positioning.ChessJson;
 import com.google.gson.Gson;
-import dataaccess.interfaces.AuthDAO;
 
+/**
+ * Base for the HTTP handlers. Handlers keep no per-request state, so the server
+ * builds one of each at startup and shares it across request threads.
+ */
 public class Handler {
-    protected final AuthDAO aDAO;
     protected final Gson serializer;
 
-    public Handler(AuthDAO authDataAcc) {
-        aDAO = authDataAcc;
-        serializer = new Gson();
+    public Handler() {
+        serializer = ChessJson.gson();
     }
 }
@@ -3,24 +3,19 @@ package handler;
 import dataaccess.exceptions.BadRequestException;
 import dataaccess.exceptions.DataAccessException;
 
-import dataaccess.interfaces.AuthDAO;
-import dataaccess.interfaces.GameDAO;
-
 import request.JoinRequest;
 import result.JoinResult;
 
 import service.Game;
 
 public class Join extends Handler {
-    private final GameDAO gDAO;
+    private final Game gameService;
 
-    public Join(AuthDAO authDataAcc, GameDAO gameDataAcc) {
-        super(authDataAcc);
-        gDAO = gameDataAcc;
+    public Join(Game gameService) {
+        this.gameService = gameService;
     }
 
     public String run(String authToken, String jsonRequest) throws BadRequestException, DataAccessException {
-        var gameService = new Game(aDAO, gDAO);
         JoinRequest request = serializer.fromJson(jsonRequest, JoinRequest.class);
         checkArguments(request);
         JoinResult result = gameService.joinGame(authToken, request);
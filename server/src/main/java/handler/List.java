@@ -1,26 +1,61 @@
 package handler;
 
+import dataaccess.exceptions.BadRequestException;
 import dataaccess.exceptions.DataAccessException;
-import dataaccess.exceptions.InvalidAuthorizationException;
-
-import dataaccess.interfaces.AuthDAO;
-import dataaccess.interfaces.GameDAO;
 
+import request.ListRequest;
 import service.Game;
 
 import result.ListResult;
 
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
 public class List extends Handler {
-    private final GameDAO gDAO;
+    private final Game gameService;
 
-    public List(AuthDAO authDataAcc, GameDAO gameDataAcc) {
-        super(authDataAcc);
-        gDAO = gameDataAcc;
+    public List(Game gameService) {
+        this.gameService = gameService;
     }
 
-    public String run(String authToken) throws InvalidAuthorizationException, DataAccessException {
-        var gameService = new Game(aDAO, gDAO);
-        ListResult result = gameService.listGames(authToken);
+    public String run(String authToken, String query) throws BadRequestException, DataAccessException {
+        ListResult result = gameService.listGames(authToken, parseQuery(query));
         return serializer.toJson(result);
     }
+
+    //cursor, limit, open, player and status from the URL query string
+    private ListRequest parseQuery(String query) throws BadRequestException {
+        if (query == null || query.isEmpty()) {return ListRequest.ALL;}
+        Integer cursor = null;
+        Integer limit = null;
+        boolean open = false;
+        String player = null;
+        String status = null;
+        for (String pair : query.split("&")) {
+            int split = pair.indexOf('=');
+            String key = decode((split < 0) ? pair : pair.substring(0, split));
+            String value = (split < 0) ? "" : decode(pair.substring(split + 1));
+            switch (key) {
+                case "cursor" -> cursor = number(value);
+                case "limit" -> limit = number(value);
+                case "open" -> open = value.isEmpty() || Boolean.parseBoolean(value);
+                case "player" -> player = value;
+                case "status" -> status = value;
+                default -> {}
+            }
+        }
+        return new ListRequest(cursor, limit, open, player, status);
+    }
+
+    private static String decode(String text) {
+        return URLDecoder.decode(text, StandardCharsets.UTF_8);
+    }
+
+    private static Integer number(String value) throws BadRequestException {
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException ex) {
+            throw new BadRequestException("Error: bad request", ex);
+        }
+    }
 }
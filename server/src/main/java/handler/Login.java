@@ -6,21 +6,16 @@ import dataaccess.exceptions.DataAccessException;
 import request.LoginRequest;
 import result.LoginResult;
 
-import dataaccess.interfaces.UserDAO;
-import dataaccess.interfaces.AuthDAO;
-
 import service.User;
 
 public class Login extends Handler {
-    private final UserDAO uDAO;
+    private final User userService;
 
-    public Login(UserDAO userDataAcc, AuthDAO authDataAcc) {
-        super(authDataAcc);
-        uDAO = userDataAcc;
+    public Login(User userService) {
+        this.userService = userService;
     }
 
     public String run(String jsonRequest) throws DataAccessException {
-        User userService = new User(uDAO, aDAO);
         LoginRequest request = serializer.fromJson(jsonRequest, LoginRequest.class);
         checkArguments(request);
         LoginResult result = userService.login(request);
@@ -2,20 +2,18 @@ package handler;
 
 import dataaccess.exceptions.DataAccessException;
 
-import dataaccess.interfaces.AuthDAO;
-
 import result.LogoutResult;
 
 import service.User;
 
 public class Logout extends Handler {
+    private final User userService;
 
-    public Logout(AuthDAO authDataAcc) {
-        super(authDataAcc);
+    public Logout(User userService) {
+        this.userService = userService;
     }
 
     public String run(String authToken) throws DataAccessException {
-        User userService = new User(null, aDAO);
         LogoutResult result = userService.logout(authToken);
         return serializer.toJson(result);
     }
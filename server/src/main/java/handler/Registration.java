@@ -7,21 +7,16 @@ import dataaccess.exceptions.DataAccessException;
 import request.RegisterRequest;
 import result.RegisterResult;
 
-import dataaccess.interfaces.UserDAO;
-import dataaccess.interfaces.AuthDAO;
-
 import service.User;
 
 public class Registration extends Handler {
-    private final UserDAO uDAO;
+    private final User userService;
 
-    public Registration(UserDAO userDataAcc, AuthDAO authDataAcc) {
-        super(authDataAcc);
-        uDAO = userDataAcc;
+    public Registration(User userService) {
+        this.userService = userService;
     }
 
     public String run(String jsonRequest) throws JsonSyntaxException, DataAccessException {
-        User userService = new User(uDAO, aDAO);
         RegisterRequest request = serializer.fromJson(jsonRequest, RegisterRequest.class);
         checkArguments(request);
         RegisterResult result = userService.register(request);
@@ -0,0 +1,51 @@
+package server;
+
+import dataaccess.exceptions.ServerBusyException;
+
+import io.javalin.http.Handler;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps how many requests of one kind run at once. With handlers on virtual
+ * threads the thread count no longer limits anything, so each endpoint class
+ * gets its own permits; a request that cannot get one within the wait time is
+ * turned away instead of queueing without bound.
+ */
+public class Bulkhead {
+    private final String name;
+    private final Semaphore permits;
+    private final long waitMs;
+
+    public Bulkhead(String name, int limit, long waitMs) {
+        this.name = name;
+        this.permits = new Semaphore(limit);
+        this.waitMs = waitMs;
+    }
+
+    /**
+     * @return the handler guarded by this bulkhead; it throws {@link ServerBusyException} when full
+     */
+    public Handler wrap(Handler handler) {
+        return context -> {
+            acquire();
+            try {
+                handler.handle(context);
+            } finally {
+                permits.release();
+            }
+        };
+    }
+
+    private void acquire() throws ServerBusyException {
+        try {
+            if (!permits.tryAcquire(waitMs, TimeUnit.MILLISECONDS)) {
+                throw new ServerBusyException(String.format("Error: too many %s requests", name));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServerBusyException(String.format("Error: interrupted waiting for %s", name), ex);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import io.javalin.*;
 
 import dataaccess.exceptions.*;
 
+import chess.positioning.ChessJson;
 import com.google.gson.JsonSyntaxException;
 
 import dataaccess.interfaces.*;
@@ -12,9 +13,27 @@ import dataaccess.interfaces.*;
 import handler.*;
 
 import service.DeleteDB;
+import service.Game;
+import service.User;
 import websockets.WebSocketHandler;
 
+import java.util.Map;
+
 public class Server {
+    //longest a game snapshot waits in the write-behind cache before reaching MySQL
+    private static final long GAME_FLUSH_INTERVAL_MS = 1000;
+    //games with no reads or writes for this long are dropped from the cache
+    private static final long GAME_IDLE_MS = 600_000;
+    //how long auth lookups are trusted without asking MySQL again
+    private static final int AUTH_CACHE_SIZE = 10_000;
+    private static final long AUTH_TTL_MS = 60_000;
+    private static final long AUTH_MISS_TTL_MS = 2_000;
+    //handlers run on virtual threads unless started with -Dserver.threads=platform
+    private static final boolean VIRTUAL_THREADS = !"platform".equalsIgnoreCase(System.getProperty("server.threads"));
+    //requests of each kind allowed to run at once (-Dserver.limit.<kind>=n), and how long one waits for a slot
+    private static final long LIMIT_WAIT_MS = Long.getLong("server.limit.waitMs", 1_000);
+    //how long stop() lets queued websocket commands finish before flushing their games
+    private static final long SHUTDOWN_WAIT_MS = 5_000;
 
     private final Javalin javalin;
     private WebSocketHandler wsHandler;
@@ -22,59 +41,84 @@ public class Server {
     private UserDAO uDAO;
     private AuthDAO aDAO;
     private GameDAO gDAO;
+    private CachingGameDAO gameCache;
+
+    //handlers and services hold no per-request state, so one of each serves every request
+    private final Registration registration;
+    private final Login login;
+    private final Logout logout;
+    private final List list;
+    private final Get get;
+    private final Create create;
+    private final Join join;
+    private final DeleteDB dataService;
+
+    private final Bulkhead accounts = bulkhead("accounts", 64);
+    private final Bulkhead gameRequests = bulkhead("games", 256);
+    private final Bulkhead admin = bulkhead("admin", 4);
 
     public Server() {
-        javalin = Javalin.create(config -> config.staticFiles.add("web"));
+        javalin = Javalin.create(config -> {
+            config.staticFiles.add("web");
+            config.useVirtualThreads = VIRTUAL_THREADS;
+        });
         mySqlImplementation();
 
+        User userService = new User(uDAO, aDAO);
+        Game gameService = new Game(aDAO, gDAO);
+        registration = new Registration(userService);
+        login = new Login(userService);
+        logout = new Logout(userService);
+        list = new List(gameService);
+        get = new Get(gameService);
+        create = new Create(gameService);
+        join = new Join(gameService);
+        dataService = new DeleteDB(uDAO, aDAO, gDAO);
+
         // Register your endpoints and exception handlers here.
-        javalin.post("/user", context -> {
-            var registrationHandler = new Registration(uDAO, aDAO);
-            String result = registrationHandler.run(context.body());
+        javalin.post("/user", accounts.wrap(context -> {
+            String result = registration.run(context.body());
             context.result(result);
-        });
+        }));
 
-        javalin.post("/session", context -> {
-            var loginHandler = new Login(uDAO, aDAO);
-            String result = loginHandler.run(context.body());
+        javalin.post("/session", accounts.wrap(context -> {
+            String result = login.run(context.body());
             context.result(result);
-        });
+        }));
 
-        javalin.delete("/session", context -> {
-            var logoutHandler = new Logout(aDAO);
-            String result = logoutHandler.run(context.header("Authorization"));
+        javalin.delete("/session", accounts.wrap(context -> {
+            String result = logout.run(context.header("Authorization"));
             context.result(result);
-        });
+        }));
 
-        javalin.get("/game", context -> {
-            var listHandler = new List(aDAO, gDAO);
-            String result = listHandler.run(context.header("Authorization"));
+        javalin.get("/game", gameRequests.wrap(context -> {
+            String result = list.run(context.header("Authorization"), context.queryString());
             context.result(result);
-        });
+        }));
 
-        javalin.get("/game/specific", context -> {
-            var getHandler = new Get(aDAO, gDAO);
-            String result = getHandler.run(context.header("Authorization"), context.body());
+        javalin.get("/game/specific", gameRequests.wrap(context -> {
+            String result = get.run(context.header("Authorization"), context.body());
             context.result(result);
-        });
+        }));
 
-        javalin.post("/game", context -> {
-            var createHandler = new Create(aDAO, gDAO);
-            String result = createHandler.run(context.header("Authorization"), context.body());
+        javalin.post("/game", gameRequests.wrap(context -> {
+            String result = create.run(context.header("Authorization"), context.body());
             context.result(result);
-        });
+        }));
 
-        javalin.put("/game", context -> {
-            var joinHandler = new Join(aDAO, gDAO);
-            String result = joinHandler.run(context.header("Authorization"), context.body());
+        javalin.put("/game", gameRequests.wrap(context -> {
+            String result = join.run(context.header("Authorization"), context.body());
             context.result(result);
-        });
+        }));
 
-        javalin.delete("/db", context -> {
-            DeleteDB dataService = new DeleteDB(uDAO, aDAO, gDAO);
+        javalin.delete("/db", admin.wrap(context -> {
             dataService.clear();
             context.result("{}");
-        });
+        }));
+
+        javalin.get("/stats", admin.wrap(context -> {
+            context.result(ChessJson.gson().toJson(Map.of("pool", DatabaseManager.getPoolStats(), "hasher", PasswordHasher.getStats())));
+        }));
 
         javalin.ws("/ws", ws -> {
             ws.onConnect(wsHandler);
@@ -103,6 +147,11 @@ public class Server {
             context.result("{\"message\": \"Error: username already taken\"}");
         });
 
+        javalin.exception(ServerBusyException.class, (e, context) -> {
+            context.status(503);
+            context.result("{\"message\": \"" + e.getMessage() + "\"}");
+        });
+
         javalin.exception(DataAccessException.class, (e, context) -> {
             context.status(500);
             context.result("{\"message\": \"Error: (" + e.getMessage().replace("\"", "") + ")\"}");
@@ -121,17 +170,36 @@ public class Server {
         return javalin.port();
     }
 
+    //requests stop first, then queued game commands finish and their games are flushed, then the pools close
     public void stop() {
         javalin.stop();
+        if (wsHandler != null) {wsHandler.close(SHUTDOWN_WAIT_MS);}
+        try {
+            //without a database connection there is no cache to flush and no pool to close
+            if (gameCache != null) {gameCache.close();}
+        } catch (DataAccessException ex) {
+            throw new IllegalStateException("Unable to flush cached games: " + ex.getMessage(), ex);
+        } finally {
+            if (gameCache != null) {DatabaseManager.closePool();}
+            PasswordHasher.close();
+        }
+    }
+
+    private static Bulkhead bulkhead(String kind, int defaultLimit) {
+        return new Bulkhead(kind, Integer.getInteger("server.limit." + kind, defaultLimit), LIMIT_WAIT_MS);
     }
 
     private void mySqlImplementation() {
         try {
             dataaccess.MySqlDAO overDAO = new MySqlDAO();
             uDAO = overDAO.getUserDAO();
-            aDAO = overDAO.getAuthDAO();
-            gDAO = overDAO.getGameDAO();
-            wsHandler = new WebSocketHandler(aDAO, gDAO);
+            CachingAuthDAO authCache = new CachingAuthDAO(overDAO.getAuthDAO(), AUTH_CACHE_SIZE, AUTH_TTL_MS, AUTH_MISS_TTL_MS);
+            aDAO = authCache;
+            gameCache = new CachingGameDAO(overDAO.getGameDAO(), GAME_FLUSH_INTERVAL_MS, GAME_IDLE_MS);
+            gDAO = gameCache;
+            //websocket commands are limited where they queue for their game, not where they arrive
+            wsHandler = new WebSocketHandler(aDAO, gDAO, Integer.getInteger("server.limit.websocket", 1024), LIMIT_WAIT_MS);
+            authCache.setRevocationListener(wsHandler::revoke);
         } catch (Exception ex) {
             System.out.println(ex.getMessage());
         }
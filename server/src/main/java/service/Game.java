@@ -10,6 +10,7 @@ import dataaccess.interfaces.GameDAO;
 import request.CreateRequest;
 import request.JoinRequest;
 import request.GetRequest;
+import request.ListRequest;
 
 import result.GetResult;
 import result.JoinResult;
@@ -19,30 +20,40 @@ import result.ListResult;
 import model.GameData;
 import model.AuthData;
 
-import java.util.Random;
-
 public class Game {
+    //largest page a listing returns; later games are reached through the cursor
+    private static final int MAX_PAGE = 100;
+
     private final AuthDAO aDAO;
     private final GameDAO gDAO;
-    private final Random random;
 
     public Game(AuthDAO authDataAcc, GameDAO gameDataAcc) {
         aDAO = authDataAcc;
         gDAO = gameDataAcc;
-        random = new Random();
     }
 
     public ListResult listGames(String authToken) throws DataAccessException {
+        return listGames(authToken, ListRequest.ALL);
+    }
+
+    public ListResult listGames(String authToken, ListRequest request) throws DataAccessException {
         if (aDAO.getAuth(authToken) == null) {throw new InvalidAuthorizationException("Error: unauthorized");}
+        if (request.limit() != null && request.limit() < 1) {throw new BadRequestException("Error: limit must be positive");}
+        if (request.status() != null && !request.status().equals(ListRequest.ACTIVE) && !request.status().equals(ListRequest.FINISHED)) {
+            throw new BadRequestException("Error: unknown game status");
+        }
+        Integer limit = (request.limit() == null) ? null : Math.min(request.limit(), MAX_PAGE);
+        GameData[] page = gDAO.listGames(new ListRequest(request.cursor(), limit, request.openOnly(), request.player(), request.status()));
         ListResult games = new ListResult();
-        for (GameData g : gDAO.listGames()) {games.add(g);}
+        for (GameData g : page) {games.add(g);}
+        if (limit != null && page.length == limit) {games.setNextCursor(page[page.length - 1].gameID());}
         return games;
     }
 
     public NewGameResult newGame(String authToken, CreateRequest request) throws DataAccessException {
         if (aDAO.getAuth(authToken) == null) {throw new InvalidAuthorizationException("Error: unauthorized");}
-        int newID = makeNewID();
         if (request.gameName().isEmpty()) {throw new BadRequestException("Error: game name not provided");}
+        int newID = gDAO.allocateID();
         gDAO.createGame(new GameData(newID, null, null, request.gameName(), new ChessGame()));
         return new NewGameResult(newID);
     }
@@ -50,27 +61,25 @@ public class Game {
     public JoinResult joinGame(String authToken, JoinRequest request) throws DataAccessException {
         AuthData currentUser = aDAO.getAuth(authToken);
         if (currentUser == null) {throw new InvalidAuthorizationException("Error: unauthorized");}
-        GameData reqGame = gDAO.getGame(request.gameID());
-        if (reqGame == null) {throw new BadRequestException("Error: requested game does not exist");}
-        switch (request.playerColor()) {
+        //checked and written as one change so a concurrent join or websocket update cannot be lost
+        GameData joined = gDAO.updateGame(request.gameID(), reqGame -> switch (request.playerColor()) {
             case "WHITE" -> {
                 if (reqGame.whiteUsername() == null) {
-                    var tGame = new GameData(request.gameID(), currentUser.username(), reqGame.blackUsername(), reqGame.gameName(), reqGame.game());
-                    gDAO.updateGame(request.gameID(), tGame);
+                    yield new GameData(request.gameID(), currentUser.username(), reqGame.blackUsername(), reqGame.gameName(), reqGame.game());
                 }
                 else { throw new AlreadyTakenException("Error: color already taken"); }
             }
             case "BLACK" -> {
                 if (reqGame.blackUsername() == null) {
-                    var tGame = new GameData(request.gameID(), reqGame.whiteUsername(), currentUser.username(), reqGame.gameName(), reqGame.game());
-                    gDAO.updateGame(request.gameID(), tGame);
+                    yield new GameData(request.gameID(), reqGame.whiteUsername(), currentUser.username(), reqGame.gameName(), reqGame.game());
                 }
                 else { throw new AlreadyTakenException("Error: color already taken"); }
             }
             default -> {
                 throw new BadRequestException("Error: invalid arguments given");
             }
-        }
+        });
+        if (joined == null) {throw new BadRequestException("Error: requested game does not exist");}
         return new JoinResult();
     }
 
@@ -79,18 +88,4 @@ public class Game {
         return new GetResult(gDAO.getGame(request.gameID()));
     }
 
-    private int makeNewID() {
-        while (true) {
-            int bound = 1000;
-            try {
-                int tempID = gDAO.getLastID() % 100 + random.nextInt(bound);
-                gDAO.getGame(tempID);
-                return tempID;
-            } catch (DataAccessException ex) {
-                bound += 100;
-            }
-        }
-    }
-
-
 }
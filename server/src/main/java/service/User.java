@@ -9,7 +9,7 @@ import dataaccess.interfaces.UserDAO;
 import dataaccess.interfaces.AuthDAO;
 
 import request.RegisterRequest;
-import org.mindrot.jbcrypt.BCrypt;
+import dataaccess.PasswordHasher;
 
 import request.LoginRequest;
 
@@ -63,6 +63,6 @@ public class User {
     }
 
     private boolean compEncPass(String plain, String enc) {
-        return BCrypt.checkpw(plain, enc);
+        return PasswordHasher.check(plain, enc);
     }
 }
@@ -0,0 +1,224 @@
+package websockets;
+
+import dataaccess.exceptions.DataAccessException;
+import dataaccess.exceptions.ServerBusyException;
+import dataaccess.interfaces.GameDAO;
+
+import model.GameData;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Registry of the games that currently have websocket traffic. Each active game
+ * owns its live GameData and a mailbox of commands that run one at a time, in
+ * the order they were submitted, on a shared pool of virtual threads. Different
+ * games run in parallel and nothing is locked globally.
+ * <p>
+ * The live game is loaded from the DAO once, when the first command for it
+ * arrives. After that the DAO is only written to, for persistence. A command
+ * that throws is handed to the failure handler it was submitted with.
+ * <p>
+ * Commands queued or running across all games are capped: each holds a permit
+ * from submit until it finishes, and a submit that cannot get one within the
+ * wait time is refused with {@link ServerBusyException}. After {@link #close}
+ * every submit is refused.
+ */
+public class ActiveGames {
+
+    /**
+     * Work to run against a game while no other command for it is running
+     */
+    public interface Command {
+        void run(ActiveGame game) throws Exception;
+    }
+
+    //permitted is false for bookkeeping that runs outside the command limit
+    private record Queued(Command command, Consumer<Exception> onFailure, boolean permitted) {}
+
+    private final ConcurrentHashMap<Integer, ActiveGame> games = new ConcurrentHashMap<>();
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final GameDAO gDAO;
+    private final Semaphore permits;
+    private final long waitMs;
+
+    /**
+     * @param commandLimit commands allowed to be queued or running at once, over all games
+     * @param waitMs       how long a submit waits for room before it is refused
+     */
+    public ActiveGames(GameDAO gDAO, int commandLimit, long waitMs) {
+        this.gDAO = gDAO;
+        this.permits = new Semaphore(commandLimit);
+        this.waitMs = waitMs;
+    }
+
+    /**
+     * Queues a command for a game, activating the game if needed
+     *
+     * @param onFailure called on the game's thread with anything the command throws
+     * @throws ServerBusyException if the command limit stays full for the wait time
+     */
+    public void submit(int gameID, Command command, Consumer<Exception> onFailure) throws ServerBusyException {
+        try {
+            if (!permits.tryAcquire(waitMs, TimeUnit.MILLISECONDS)) {
+                throw new ServerBusyException("Error: server busy, try again");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServerBusyException("Error: interrupted waiting for the game", ex);
+        }
+        try {
+            enqueue(gameID, new Queued(command, onFailure, true));
+        } catch (RejectedExecutionException ex) {
+            permits.release();
+            throw new ServerBusyException("Error: server is shutting down", ex);
+        }
+    }
+
+    /**
+     * Retires the game once its queued commands have run, if the condition still
+     * holds then. Never refused, so a closing session always releases its game.
+     */
+    public void retireWhen(int gameID, BooleanSupplier condition) {
+        schedule(gameID, game -> {
+            if (condition.getAsBoolean()) {game.retire();}
+        });
+    }
+
+    /**
+     * Queues bookkeeping for a game outside the command limit, so it is never
+     * refused or left waiting; whatever it throws is ignored. Dropped once closed.
+     */
+    public void schedule(int gameID, Command command) {
+        try {
+            enqueue(gameID, new Queued(command, ex -> {}, false));
+        } catch (RejectedExecutionException ex) {
+            //shutting down, so every game is going away anyway
+        }
+    }
+
+    /**
+     * Refuses further commands and waits for the ones already queued to finish
+     *
+     * @return false if commands were still running when the timeout ran out
+     */
+    public boolean close(long timeoutMillis) {
+        workers.shutdown();
+        try {
+            return workers.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void enqueue(int gameID, Queued queued) {
+        while (!games.computeIfAbsent(gameID, id -> new ActiveGame(id)).offer(queued)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    public int size() {
+        return games.size();
+    }
+
+    public class ActiveGame {
+        private final int gameID;
+        private final ConcurrentLinkedQueue<Queued> mailbox = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private boolean retired;
+        private boolean loaded;
+        private GameData data;
+
+        private ActiveGame(int gameID) {
+            this.gameID = gameID;
+        }
+
+        public int gameID() {
+            return gameID;
+        }
+
+        /**
+         * @return the live game, loaded from the DAO on first use, or null if no such game exists
+         */
+        public GameData data() throws DataAccessException {
+            if (!loaded) {
+                data = gDAO.getGame(gameID);
+                loaded = (data != null);
+            }
+            return data;
+        }
+
+        /**
+         * Replaces the live game, e.g. after players join or leave
+         */
+        public void setData(GameData data) {
+            this.data = data;
+            loaded = (data != null);
+        }
+
+        /**
+         * Picks up player and name changes made outside the websocket (e.g. joining
+         * over HTTP) while keeping the live board
+         */
+        public GameData refresh() throws DataAccessException {
+            GameData stored = gDAO.getGame(gameID);
+            if (stored == null || !loaded) {
+                setData(stored);
+            } else {
+                setData(new GameData(gameID, stored.whiteUsername(), stored.blackUsername(), stored.gameName(), data.game()));
+            }
+            return data;
+        }
+
+        /**
+         * Drops this game from the registry once its mailbox is empty; the next
+         * command for the game activates a fresh copy loaded from the DAO
+         */
+        public synchronized void retire() {
+            if (mailbox.isEmpty()) {
+                retired = true;
+                games.remove(gameID, this);
+            }
+        }
+
+        private synchronized boolean offer(Queued command) {
+            if (retired) {return false;}
+            mailbox.add(command);
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    workers.execute(this::drain);
+                } catch (RejectedExecutionException ex) {
+                    mailbox.remove(command);
+                    scheduled.set(false);
+                    throw ex;
+                }
+            }
+            return true;
+        }
+
+        private void drain() {
+            do {
+                Queued queued;
+                while ((queued = mailbox.poll()) != null) {
+                    try {
+                        queued.command().run(this);
+                    } catch (Exception ex) {
+                        queued.onFailure().accept(ex);
+                    } finally {
+                        if (queued.permitted()) {permits.release();}
+                    }
+                }
+                scheduled.set(false);
+            } while (!mailbox.isEmpty() && scheduled.compareAndSet(false, true));
+        }
+    }
+}
@@ -1,39 +1,166 @@
 package websockets;
 
+import chess.positioning.ChessJson;
 import com.google.gson.Gson;
 import org.eclipse.jetty.websocket.api.Session;
 
-import java.io.IOException;
 import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import websocket.messages.ServerMessage;
 
 public class ConnectionManager {
-    //Data structure to track and update sessions connected to a specific game
-    private final ConcurrentHashMap<Integer, HashSet<Session>> connections = new ConcurrentHashMap<>();
+    /**
+     * What to do when a session's outbound queue is full: drop the new message,
+     * make room for a new LOAD_GAME by dropping the queued ones (or else the oldest
+     * notification), or disconnect the session. A session that misses a message
+     * is sent a fresh LOAD_GAME afterward.
+     */
+    public enum SlowConsumerPolicy {
+        DROP,
+        COALESCE,
+        DISCONNECT
+    }
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    private static final Gson GSON = ChessJson.gson();
+
+    //Sessions connected to each game. Each set is an immutable snapshot replaced atomically on
+    //add/remove (copy-on-write), so broadcasts iterate without locking and games with no
+    //sessions left are dropped from the map.
+    private final ConcurrentHashMap<Integer, Set<Session>> connections = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Session, Outbox> outboxes = new ConcurrentHashMap<>();
+    //sessions that take move deltas instead of a full LOAD_GAME after each move
+    private final Set<Session> moveDeltas = ConcurrentHashMap.newKeySet();
+    private final int queueCapacity;
+    private final SlowConsumerPolicy policy;
+    private volatile Consumer<Session> resyncListener = session -> {};
+
+    public ConnectionManager() {
+        this(DEFAULT_QUEUE_CAPACITY, SlowConsumerPolicy.COALESCE);
+    }
+
+    public ConnectionManager(int queueCapacity, SlowConsumerPolicy policy) {
+        this.queueCapacity = queueCapacity;
+        this.policy = policy;
+    }
 
     //add session
     public void add(Integer gameID, Session session) {
-        connections.putIfAbsent(gameID, new HashSet<>());
-        connections.get(gameID).add(session);
+        connections.compute(gameID, (id, sessions) -> {
+            if (sessions == null) {return Set.of(session);}
+            if (sessions.contains(session)) {return sessions;}
+            HashSet<Session> updated = new HashSet<>(sessions);
+            updated.add(session);
+            return Set.copyOf(updated);
+        });
     }
 
     //remove session
     public void remove(Integer gameID, Session session) {
-        if (connections.containsKey(gameID)) {
-            connections.get(gameID).remove(session);
+        connections.computeIfPresent(gameID, (id, sessions) -> {
+            if (!sessions.contains(session)) {return sessions;}
+            HashSet<Session> updated = new HashSet<>(sessions);
+            updated.remove(session);
+            return updated.isEmpty() ? null : Set.copyOf(updated);
+        });
+    }
+
+    //choose whether the session gets move deltas or full LOAD_GAMEs after each move
+    public void setMoveDeltas(Session session, boolean enabled) {
+        if (enabled) {moveDeltas.add(session);}
+        else {moveDeltas.remove(session);}
+    }
+
+    //forget a closed session's outbound queue and preferences
+    public void discard(Session session) {
+        moveDeltas.remove(session);
+        Outbox outbox = outboxes.remove(session);
+        if (outbox != null) {outbox.close();}
+    }
+
+    //called with a session that dropped messages once its queue has drained, so it can be sent a fresh LOAD_GAME
+    public void setResyncListener(Consumer<Session> listener) {
+        resyncListener = listener;
+    }
+
+    //whether any session is still connected to the game
+    public boolean hasConnections(Integer gameID) {
+        return connections.containsKey(gameID);
+    }
+
+    //queue a message to one session without waiting for it to be written
+    public void send(Session session, ServerMessage message) {
+        offer(session, GSON.toJson(message), isSnapshot(message));
+    }
+
+    //queue a last message to one session, then close it once everything queued before it is written
+    public void sendAndClose(Session session, ServerMessage message) {
+        moveDeltas.remove(session);
+        Outbox outbox = outboxes.computeIfAbsent(session, this::newOutbox);
+        if (outbox.offer(GSON.toJson(message), isSnapshot(message))) {
+            outbox.closeAfterFlush();
+        } else {
+            outboxes.remove(session, outbox);
+            session.close();
         }
     }
 
-    //broadcast specific message
-    public void broadcast(Integer gameID, Session excludeSession, ServerMessage notification) throws IOException {
-        String msg = new Gson().toJson(notification);
-        for (Session session : connections.get(gameID)) {
-            if (session.isOpen() & !session.equals(excludeSession)) {
-                session.getRemote().sendString(msg);
+    //broadcast specific message, encoded once and queued to each session; closed sessions and
+    //sessions the slow-consumer policy disconnects are dropped along the way
+    public void broadcast(Integer gameID, Session excludeSession, ServerMessage notification) {
+        broadcast(gameID, excludeSession, notification, null);
+    }
+
+    //broadcast a game update: sessions that asked for deltas get the delta, the rest the full
+    //message; each form is encoded at most once
+    public void broadcast(Integer gameID, Session excludeSession, ServerMessage full, ServerMessage delta) {
+        Set<Session> sessions = connections.get(gameID);
+        if (sessions == null) {return;}
+        String fullMsg = null;
+        String deltaMsg = null;
+        for (Session session : sessions) {
+            if (!session.isOpen()) {
+                remove(gameID, session);
+                discard(session);
+                continue;
+            }
+            if (session.equals(excludeSession)) {continue;}
+            boolean sent;
+            //a session that has missed a message gets the full game instead of a delta it cannot apply
+            if (delta != null && moveDeltas.contains(session) && !isStale(session)) {
+                if (deltaMsg == null) {deltaMsg = GSON.toJson(delta);}
+                sent = offer(session, deltaMsg, isSnapshot(delta));
+            } else {
+                if (fullMsg == null) {fullMsg = GSON.toJson(full);}
+                sent = offer(session, fullMsg, isSnapshot(full));
             }
+            if (!sent) {remove(gameID, session);}
         }
     }
 
+    private boolean offer(Session session, String msg, boolean snapshot) {
+        Outbox outbox = outboxes.computeIfAbsent(session, this::newOutbox);
+        if (outbox.offer(msg, snapshot)) {return true;}
+        outboxes.remove(session, outbox);
+        moveDeltas.remove(session);
+        session.close();
+        return false;
+    }
+
+    private Outbox newOutbox(Session session) {
+        return new Outbox(session, queueCapacity, policy, () -> resyncListener.accept(session));
+    }
+
+    private boolean isStale(Session session) {
+        Outbox outbox = outboxes.get(session);
+        return outbox != null && outbox.stale();
+    }
+
+    private static boolean isSnapshot(ServerMessage message) {
+        return message.getServerMessageType() == ServerMessage.ServerMessageType.LOAD_GAME;
+    }
 }
@@ -0,0 +1,127 @@
+package websockets;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Bounded queue of encoded messages waiting to go out on one session. Writes are
+ * non-blocking: at most one is in flight, and its completion callback starts the
+ * next, so a slow client only backs up its own queue.
+ * <p>
+ * Once a message has been dropped the client has missed state, so the outbox is
+ * stale until a LOAD_GAME is queued; if it is still stale when the queue drains,
+ * it asks for one once with the resync callback.
+ */
+class Outbox implements WriteCallback {
+    //queued message, remembering whether it is a full game state that a newer one supersedes
+    private record Outgoing(String text, boolean snapshot) {}
+
+    private final Session session;
+    private final int capacity;
+    private final ConnectionManager.SlowConsumerPolicy policy;
+    private final Runnable resync;
+    private final ArrayDeque<Outgoing> queue = new ArrayDeque<>();
+    private boolean sending;
+    private boolean closed;
+    //set by closeAfterFlush: nothing more is queued, and the session closes once the queue is written
+    private boolean closing;
+    private boolean stale;
+
+    Outbox(Session session, int capacity, ConnectionManager.SlowConsumerPolicy policy, Runnable resync) {
+        this.session = session;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.resync = resync;
+    }
+
+    /**
+     * Queues a message and starts writing if nothing is in flight
+     *
+     * @param snapshot true for a LOAD_GAME, which the COALESCE policy may replace with a newer one
+     * @return false if the message was refused and the session should be disconnected
+     */
+    synchronized boolean offer(String text, boolean snapshot) {
+        if (closed) {return false;}
+        if (closing) {return true;}
+        if (queue.size() >= capacity && !makeRoom(snapshot)) {
+            if (policy == ConnectionManager.SlowConsumerPolicy.DISCONNECT) {
+                close();
+                return false;
+            }
+            stale = true;
+            return true;
+        }
+        if (snapshot) {stale = false;}
+        queue.add(new Outgoing(text, snapshot));
+        if (!sending) {sendNext();}
+        return true;
+    }
+
+    /**
+     * @return true if a message has been dropped since the last LOAD_GAME was queued
+     */
+    synchronized boolean stale() {return stale;}
+
+    synchronized void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    /**
+     * Stops accepting messages and closes the session once everything already
+     * queued has been written
+     */
+    synchronized void closeAfterFlush() {
+        if (closed) {return;}
+        closing = true;
+        if (!sending) {finish();}
+    }
+
+    @Override
+    public void writeSuccess() {
+        boolean resyncNeeded;
+        synchronized (this) {
+            sendNext();
+            resyncNeeded = !sending && stale && !closing && !closed;
+            //the requested LOAD_GAME is what clears it; if that is dropped too, it is set again
+            if (resyncNeeded) {stale = false;}
+        }
+        if (resyncNeeded) {resync.run();}
+    }
+
+    //the connection is broken, so there is no one to report to; closing it lets onClose clean up
+    @Override
+    public void writeFailed(Throwable x) {
+        close();
+        session.close();
+    }
+
+    private void sendNext() {
+        Outgoing next = closed ? null : queue.poll();
+        sending = (next != null);
+        if (next != null) {session.getRemote().sendString(next.text(), this);}
+        else if (closing && !closed) {finish();}
+    }
+
+    private void finish() {
+        close();
+        session.close();
+    }
+
+    //only COALESCE makes room, and only for a snapshot: it supersedes queued snapshots, or failing
+    //that pushes out the oldest notification
+    private boolean makeRoom(boolean snapshot) {
+        if (policy != ConnectionManager.SlowConsumerPolicy.COALESCE || !snapshot) {return false;}
+        if (queue.removeIf(Outgoing::snapshot)) {return true;}
+        for (Iterator<Outgoing> it = queue.iterator(); it.hasNext();) {
+            if (!it.next().snapshot()) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+}
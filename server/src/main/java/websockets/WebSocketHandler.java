@@ -3,17 +3,22 @@ package websockets;
 import chess.ChessGame;
 import chess.ChessMove;
 import chess.InvalidMoveException;
+import chess.positioning.ChessJson;
+import chess.positioning.Move;
 
 import dataaccess.exceptions.DataAccessException;
+import dataaccess.exceptions.ServerBusyException;
 import dataaccess.interfaces.*;
 
 import model.AuthData;
 import model.GameData;
 
-import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import io.javalin.websocket.*;
 
+import org.eclipse.jetty.websocket.api.Session;
 import org.jetbrains.annotations.NotNull;
 
 import websocket.commands.*;
@@ -26,14 +31,30 @@ import static websocket.messages.Notification.NotificationType.*;
 
 
 public class WebSocketHandler implements WsConnectHandler, WsCloseHandler, WsMessageHandler {
+    //moves between full game snapshots; every other move is only appended to the move log
+    private static final int SNAPSHOT_INTERVAL = 20;
+    private static final Gson GSON = ChessJson.gson();
+
+    //who a session authenticated as on CONNECT, so later commands skip the auth lookup
+    private record Binding(String authToken, String username, Integer gameID) {}
+
     private final ConnectionManager connections;
+    private final ActiveGames games;
+    private final ConcurrentHashMap<Session, Binding> bindings = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<Session>> sessionsByToken = new ConcurrentHashMap<>();
     private final AuthDAO aDAO;
     private final GameDAO gDAO;
 
-    public WebSocketHandler(AuthDAO aDAO, GameDAO gDAO) {
+    /**
+     * @param commandLimit game commands allowed to be queued or running at once
+     * @param waitMs       how long a message waits for room before it is answered with an error
+     */
+    public WebSocketHandler(AuthDAO aDAO, GameDAO gDAO, int commandLimit, long waitMs) {
         this.connections = new ConnectionManager();
+        this.games = new ActiveGames(gDAO, commandLimit, waitMs);
         this.aDAO = aDAO;
         this.gDAO = gDAO;
+        connections.setResyncListener(this::resyncDropped);
     }
 
     @Override
@@ -45,89 +66,124 @@ public class WebSocketHandler implements WsConnectHandler, WsCloseHandler, WsMes
     }
 
     @Override
-    public void handleMessage(@NotNull WsMessageContext ctx) throws DataAccessException, IOException {
+    public void handleMessage(@NotNull WsMessageContext ctx) throws DataAccessException {
         System.out.println("Handling message");
         System.out.println("Message: " + ctx.message());
-        UserGameCommand command = new Gson().fromJson(ctx.message(), UserGameCommand.class);
-        if (verify(command.getAuthToken()) == null) {
-            ctx.send(toJSON(new ErrorMessage("Error: unauthorized")));
-            ctx.closeSession();
+        UserGameCommand command = GSON.fromJson(ctx.message(), UserGameCommand.class);
+        String user = authenticate(command, ctx.session);
+        if (user == null) {
+            connections.sendAndClose(ctx.session, new ErrorMessage("Error: unauthorized"));
             System.out.printf("\n%s provided invalid authentication, dropped websocket connection", ctx.sessionId());
+        } else if (command.getGameID() == null) {
+            connections.send(ctx.session, new ErrorMessage("Error: Invalid GameID"));
         } else {
             System.out.println(command.getCommandType());
-            switch (command.getCommandType()) {
-                case UserGameCommand.CommandType.CONNECT -> connect(command, ctx);
-                case UserGameCommand.CommandType.LEAVE -> leave(command, ctx);
-                case UserGameCommand.CommandType.RESIGN -> resign(command, ctx);
-                case UserGameCommand.CommandType.MAKE_MOVE -> makeMove(ctx);
-                default -> {}
+            //commands for one game run one at a time against its live state; when too many are
+            //already waiting across all games the message is turned away
+            try {
+                switch (command.getCommandType()) {
+                    case UserGameCommand.CommandType.CONNECT -> {
+                        ConnectCommand connectCommand = GSON.fromJson(ctx.message(), ConnectCommand.class);
+                        games.submit(command.getGameID(), game -> connect(connectCommand, user, ctx, game), ex -> fail(ctx.session, ex));
+                    }
+                    case UserGameCommand.CommandType.RESYNC -> games.submit(command.getGameID(), game -> resync(ctx.session, game), ex -> fail(ctx.session, ex));
+                    case UserGameCommand.CommandType.LEAVE -> games.submit(command.getGameID(), game -> leave(command, user, ctx, game), ex -> fail(ctx.session, ex));
+                    case UserGameCommand.CommandType.RESIGN -> games.submit(command.getGameID(), game -> resign(command, user, ctx, game), ex -> fail(ctx.session, ex));
+                    case UserGameCommand.CommandType.MAKE_MOVE -> {
+                        MakeMoveCommand moveCommand = GSON.fromJson(ctx.message(), MakeMoveCommand.class);
+                        games.submit(command.getGameID(), game -> makeMove(moveCommand, user, ctx, game), ex -> fail(ctx.session, ex));
+                    }
+                    default -> {}
+                }
+            } catch (ServerBusyException ex) {
+                connections.send(ctx.session, new ErrorMessage(ex.getMessage()));
             }
         }
     }
 
     @Override
     public void handleClose(@NotNull WsCloseContext ctx) {
-        System.out.printf("\n%s websocket closed", ctx.sessionId());
-        System.out.println("\n" + ctx.reason());
-        System.out.println(ctx.sessionAttributeMap());
+        Binding bound = unbind(ctx.session);
+        if (bound != null) {leaveBroadcasts(bound.gameID(), ctx.session);}
+        connections.discard(ctx.session);
     }
 
-    private void connect(UserGameCommand command, WsMessageContext ctx) throws DataAccessException, IOException {
-        GameData game = gDAO.getGame(command.getGameID());
-        System.out.println("Started connect method");
-        if (game == null) {ctx.send(toJSON(new ErrorMessage("Error: Invalid GameID")));}
+    private void connect(ConnectCommand command, String user, WsMessageContext ctx, ActiveGames.ActiveGame active) throws DataAccessException {
+        GameData game = active.refresh();
+        if (game == null) {connections.send(ctx.session, new ErrorMessage("Error: Invalid GameID"));}
         else {
-            ctx.send(new Gson().toJson(new LoadGame(game)));
+            bind(ctx.session, command.getAuthToken(), user, game.gameID());
+            //a logout since the token was checked would have missed this binding
+            if (aDAO.getAuth(command.getAuthToken()) == null) {
+                revoke(command.getAuthToken());
+                return;
+            }
+            connections.setMoveDeltas(ctx.session, command.wantsMoveDeltas());
+            connections.send(ctx.session, new LoadGame(game));
             connections.add(command.getGameID(), ctx.session);
-            String user = getUser(command.getAuthToken());
             connections.broadcast(command.getGameID(), ctx.session, new Notification(connectMessage(user, game), SHALOM));
             String state = stateMessage(game);
             if (!state.isEmpty()) {
-                ctx.send(new Gson().toJson(new Notification(state, SHALOM)));
+                connections.send(ctx.session, new Notification(state, SHALOM));
             }
         }
     }
 
-    private void leave(UserGameCommand command, WsMessageContext ctx) throws DataAccessException, IOException {
-        GameData game = gDAO.getGame(command.getGameID());
-        if (game == null) {ctx.send(toJSON(new ErrorMessage("Error: Invalid GameID")));}
+    //full game state for a client whose copy no longer matches a move delta
+    private void resync(Session session, ActiveGames.ActiveGame active) throws DataAccessException {
+        GameData game = active.data();
+        if (game == null) {connections.send(session, new ErrorMessage("Error: Invalid GameID"));}
+        else {connections.send(session, new LoadGame(game));}
+    }
+
+    //a session that had messages dropped under load is sent its game once its queue has drained
+    private void resyncDropped(Session session) {
+        Binding bound = bindings.get(session);
+        if (bound != null) {games.schedule(bound.gameID(), game -> resync(session, game));}
+    }
+
+    private void leave(UserGameCommand command, String user, WsMessageContext ctx, ActiveGames.ActiveGame active) throws DataAccessException {
+        GameData game = active.data();
+        if (game == null) {connections.send(ctx.session, new ErrorMessage("Error: Invalid GameID"));}
         else {
-            String user = getUser(command.getAuthToken());
             connections.remove(game.gameID(), ctx.session);
-            leaveGame(game, user);
+            unbind(ctx.session);
+            leaveGame(active, game, user);
             connections.broadcast(command.getGameID(), null, new Notification(leaveMessage(user, game), SHALOM));
             ctx.closeSession();
+            if (!connections.hasConnections(game.gameID())) {active.retire();}
         }
     }
 
-    private void resign(UserGameCommand command, WsMessageContext ctx) throws DataAccessException, IOException {
-        GameData game = gDAO.getGame(command.getGameID());
-        if (game == null) {ctx.send(toJSON(new ErrorMessage("Error: Invalid GameID")));}
+    private void resign(UserGameCommand command, String user, WsMessageContext ctx, ActiveGames.ActiveGame active) throws DataAccessException {
+        //players may have joined over HTTP since this game was loaded
+        GameData game = active.refresh();
+        if (game == null) {connections.send(ctx.session, new ErrorMessage("Error: Invalid GameID"));}
         else {
-            String user = getUser(command.getAuthToken());
-            if (user == null) {ctx.send(toJSON(new ErrorMessage("Error: Invalid Authorization")));}
+            ChessGame internalGame = game.game();
+            if (!user.equals(game.whiteUsername()) & !user.equals(game.blackUsername()) | internalGame.getTeamTurn().equals(FINISHED)) {
+                connections.send(ctx.session, new ErrorMessage("Error: Invalid Authorization"));
+            }
             else {
-                ChessGame internalGame = game.game();
-                if (!user.equals(game.whiteUsername()) & !user.equals(game.blackUsername()) | internalGame.getTeamTurn().equals(FINISHED)) {
-                    ctx.send(toJSON(new ErrorMessage("Error: Invalid Authorization")));
-                }
-                else {
-                    internalGame.setTeamTurn(FINISHED);
-                    gDAO.updateGame(command.getGameID(), game);
-                    connections.broadcast(command.getGameID(), null, new Notification(prepMessage(user, game) + " resigned", RESIGN));
+                ChessGame.TeamColor turn = internalGame.getTeamTurn();
+                internalGame.setTeamTurn(FINISHED);
+                try {
+                    snapshot(active, game);
+                } catch (DataAccessException | RuntimeException ex) {
+                    internalGame.setTeamTurn(turn);
+                    throw ex;
                 }
+                connections.broadcast(command.getGameID(), null, new Notification(prepMessage(user, game) + " resigned", RESIGN));
             }
         }
     }
 
-    private void makeMove(WsMessageContext ctx) throws DataAccessException, IOException {
-        MakeMoveCommand command = new Gson().fromJson(ctx.message(), MakeMoveCommand.class);
-        GameData game = gDAO.getGame(command.getGameID());
+    private void makeMove(MakeMoveCommand command, String user, WsMessageContext ctx, ActiveGames.ActiveGame active) throws DataAccessException {
+        GameData game = active.data();
         ChessMove move = command.getMove();
-        String user = getUser(command.getAuthToken());
-        if (game == null) {ctx.send(toJSON(new ErrorMessage("Error: Invalid GameID")));}
-        else if (game.game().getTeamTurn() == FINISHED) {ctx.send(toJSON(new ErrorMessage("Error: game is finished")));}
-        else if (move == null) {ctx.send(toJSON(new ErrorMessage("Error: Invalid Chess Move")));}
+        if (game == null) {connections.send(ctx.session, new ErrorMessage("Error: Invalid GameID"));}
+        else if (game.game().getTeamTurn() == FINISHED) {connections.send(ctx.session, new ErrorMessage("Error: game is finished"));}
+        else if (move == null) {connections.send(ctx.session, new ErrorMessage("Error: Invalid Chess Move"));}
         else {
             GameData validGame = checkGameMove(game, move, user);
             ChessGame.TeamColor nextTurn = game.game().getTeamTurn();
@@ -135,30 +191,95 @@ public class WebSocketHandler implements WsConnectHandler, WsCloseHandler, WsMes
                 String error = "Error: Invalid chess move";
                 String status = getGameStatus(game.game(), nextTurn);
                 if (!status.isEmpty()) {error += ", you are in " + status;}
-                ctx.send(toJSON(new ErrorMessage(error)));
+                connections.send(ctx.session, new ErrorMessage(error));
             } else {
-                updateGameMove(validGame);
-                connections.broadcast(command.getGameID(), null, new LoadGame(validGame));
+                ChessGame played = validGame.game();
+                try {
+                    gDAO.appendMove(validGame.gameID(), played.getPly(), Move.pack(move));
+                } catch (DataAccessException | RuntimeException ex) {
+                    //the move never reached the log, so the live game must not keep it either
+                    played.unmakeMove();
+                    throw ex;
+                }
+                active.setData(validGame);
+                MoveMade delta = new MoveMade(move, played, getGameStatus(played, played.getTeamTurn()));
+                connections.broadcast(command.getGameID(), null, new LoadGame(validGame), delta);
                 connections.broadcast(command.getGameID(), ctx.session, new Notification(moveMessage(user, move, validGame), MOVE));
                 String state = stateMessage(validGame);
                 if (!state.isEmpty()) {
                     connections.broadcast(command.getGameID(), null, new Notification(state, SHALOM));
                 }
+                //the move log is what makes a move durable; the game row is rewritten every few moves
+                if (played.getPly() % SNAPSHOT_INTERVAL == 0) {snapshot(active, validGame);}
             }
         }
     }
 
-    private String toJSON(Object o) {
-        return new Gson().toJson(o);
+    /**
+     * Refuses further game commands and waits for the queued ones to finish, so
+     * everything they write reaches the game DAO before it is flushed. Gives up
+     * waiting after the timeout.
+     */
+    public void close(long timeoutMillis) {
+        games.close(timeoutMillis);
+    }
+
+    //a command that failed partway is reported to the client that sent it
+    private void fail(Session session, Exception ex) {
+        connections.send(session, new ErrorMessage("Error: " + ex.getMessage()));
+    }
+
+
+    /**
+     * Closes every websocket that authenticated with a token that has just been
+     * deleted (e.g. by logging out), telling the client why first. The message is
+     * queued behind anything already on its way to the session, so this never
+     * waits on a slow client.
+     */
+    public void revoke(String authToken) {
+        Set<Session> sessions = sessionsByToken.remove(authToken);
+        if (sessions == null) {return;}
+        for (Session session : sessions) {
+            Binding bound = bindings.remove(session);
+            if (bound != null) {leaveBroadcasts(bound.gameID(), session);}
+            connections.sendAndClose(session, new ErrorMessage("Error: authorization revoked"));
+        }
+    }
+
+    //stops a session's broadcasts for a game, retiring the game if nobody else is watching
+    private void leaveBroadcasts(Integer gameID, Session session) {
+        connections.remove(gameID, session);
+        games.retireWhen(gameID, () -> !connections.hasConnections(gameID));
     }
 
+    //the bound user if the command matches the session's binding, otherwise a fresh lookup
+    private String authenticate(UserGameCommand command, Session session) throws DataAccessException {
+        Binding bound = bindings.get(session);
+        if (bound != null && bound.authToken().equals(command.getAuthToken()) && bound.gameID().equals(command.getGameID())) {
+            return bound.username();
+        }
+        AuthData auth = aDAO.getAuth(command.getAuthToken());
+        return (auth == null) ? null : auth.username();
+    }
 
-    private AuthData verify(String authToken) throws DataAccessException {
-        return aDAO.getAuth(authToken);
+    //binds a session to the game it has just connected to; a session watches one game at a
+    //time, so connecting to another stops the old game's broadcasts
+    private void bind(Session session, String authToken, String username, Integer gameID) {
+        Binding previous = unbind(session);
+        if (previous != null && !previous.gameID().equals(gameID)) {leaveBroadcasts(previous.gameID(), session);}
+        bindings.put(session, new Binding(authToken, username, gameID));
+        sessionsByToken.computeIfAbsent(authToken, token -> ConcurrentHashMap.newKeySet()).add(session);
     }
 
-    private String getUser(String authToken) throws DataAccessException {
-        return verify(authToken).username();
+    //forgets the session's binding, returning it, or null if it had none
+    private Binding unbind(Session session) {
+        Binding bound = bindings.remove(session);
+        if (bound == null) {return null;}
+        sessionsByToken.computeIfPresent(bound.authToken(), (token, sessions) -> {
+            sessions.remove(session);
+            return sessions.isEmpty() ? null : sessions;
+        });
+        return bound;
     }
 
     private String getGameStatus(ChessGame game, ChessGame.TeamColor color) {
@@ -230,18 +351,32 @@ public class WebSocketHandler implements WsConnectHandler, WsCloseHandler, WsMes
     }
 
 
-    private void leaveGame(GameData game, String user) throws DataAccessException {
-        String whiteUser = game.whiteUsername();
-        String blackUser = game.blackUsername();
-        if (user.equals(whiteUser)) {
-            whiteUser = null;
-        }
-        else if (user.equals(blackUser)) {
-            blackUser = null;
-        }
-        if (whiteUser == null | blackUser == null) {
-            gDAO.updateGame(game.gameID(), new GameData(game.gameID(), whiteUser, blackUser, game.gameName(), game.game()));
-        }
+    //players are taken from the stored game, so seats taken over HTTP since CONNECT are kept
+    private void leaveGame(ActiveGames.ActiveGame active, GameData game, String user) throws DataAccessException {
+        ChessGame live = game.game();
+        GameData left = gDAO.updateGame(game.gameID(), stored -> {
+            String whiteUser = stored.whiteUsername();
+            String blackUser = stored.blackUsername();
+            if (user.equals(whiteUser)) {
+                whiteUser = null;
+            }
+            else if (user.equals(blackUser)) {
+                blackUser = null;
+            }
+            if (whiteUser == null | blackUser == null) {
+                return new GameData(stored.gameID(), whiteUser, blackUser, stored.gameName(), live);
+            }
+            return null;
+        });
+        if (left != null) {active.setData(new GameData(left.gameID(), left.whiteUsername(), left.blackUsername(), left.gameName(), live));}
+    }
+
+    //writes the live board with the players as currently stored, and adopts those players
+    private void snapshot(ActiveGames.ActiveGame active, GameData game) throws DataAccessException {
+        ChessGame live = game.game();
+        GameData saved = gDAO.updateGame(game.gameID(),
+                stored -> new GameData(stored.gameID(), stored.whiteUsername(), stored.blackUsername(), stored.gameName(), live));
+        if (saved != null) {active.setData(saved);}
     }
 
     private GameData checkGameMove(GameData game, ChessMove move, String user) {
@@ -274,8 +409,4 @@ public class WebSocketHandler implements WsConnectHandler, WsCloseHandler, WsMes
         }
         catch (InvalidMoveException ex) {return null;}
     }
-
-    private void updateGameMove(GameData game) throws DataAccessException {
-        gDAO.updateGame(game.gameID(), game);
-    }
 }
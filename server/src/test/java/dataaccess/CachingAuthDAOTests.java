@@ -0,0 +1,95 @@
+package dataaccess;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dataaccess.exceptions.DataAccessException;
+import dataaccess.exceptions.InvalidAuthorizationException;
+import model.AuthData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CachingAuthDAOTests {
+
+    private static final AuthData AUTH = new AuthData("token", "user");
+
+    private AtomicInteger lookups;
+    private MemoryAuthDAO backing;
+
+    @BeforeEach
+    void setUp() {
+        lookups = new AtomicInteger();
+        backing = new MemoryAuthDAO() {
+            @Override
+            public AuthData getAuth(String token) {
+                lookups.incrementAndGet();
+                return super.getAuth(token);
+            }
+        };
+    }
+
+    @Test
+    public void createdTokenIsServedFromCache() throws DataAccessException {
+        CachingAuthDAO cache = new CachingAuthDAO(backing, 10, 60_000, 60_000);
+        cache.createAuth(AUTH);
+        assertEquals(AUTH, cache.getAuth("token"));
+        assertEquals(AUTH, cache.getAuth("token"));
+        assertEquals(0, lookups.get());
+        assertNull(cache.getAuth(null));
+    }
+
+    @Test
+    public void validTokenExpiresAfterTtl() throws Exception {
+        CachingAuthDAO cache = new CachingAuthDAO(backing, 10, 100, 100);
+        cache.createAuth(AUTH);
+        //removed behind the cache's back, e.g. by another server
+        backing.deleteAuth("token");
+        assertEquals(AUTH, cache.getAuth("token"));
+        Thread.sleep(150);
+        assertNull(cache.getAuth("token"));
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    public void unknownTokenIsRememberedBriefly() throws Exception {
+        CachingAuthDAO cache = new CachingAuthDAO(backing, 10, 60_000, 100);
+        assertNull(cache.getAuth("token"));
+        assertNull(cache.getAuth("token"));
+        assertEquals(1, lookups.get());
+        backing.createAuth(AUTH);
+        assertNull(cache.getAuth("token"));
+        Thread.sleep(150);
+        assertEquals(AUTH, cache.getAuth("token"));
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void deletedTokenIsRevokedAtOnce() throws DataAccessException {
+        CachingAuthDAO cache = new CachingAuthDAO(backing, 10, 60_000, 60_000);
+        ArrayList<String> revoked = new ArrayList<>();
+        cache.setRevocationListener(revoked::add);
+        cache.createAuth(AUTH);
+        cache.deleteAuth("token");
+        assertNull(cache.getAuth("token"));
+        assertEquals(List.of("token"), revoked);
+        assertThrows(InvalidAuthorizationException.class, () -> cache.deleteAuth("token"));
+        assertEquals(1, revoked.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedTokenIsDropped() throws DataAccessException {
+        CachingAuthDAO cache = new CachingAuthDAO(backing, 2, 60_000, 60_000);
+        cache.createAuth(new AuthData("a", "user"));
+        cache.createAuth(new AuthData("b", "user"));
+        cache.getAuth("a");
+        cache.createAuth(new AuthData("c", "user"));
+        cache.getAuth("a");
+        cache.getAuth("c");
+        assertEquals(0, lookups.get());
+        assertEquals("b", cache.getAuth("b").authToken());
+        assertEquals(1, lookups.get());
+    }
+}
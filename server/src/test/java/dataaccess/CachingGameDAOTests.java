@@ -0,0 +1,170 @@
+package dataaccess;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import chess.ChessGame;
+import chess.positioning.Move;
+import dataaccess.exceptions.DataAccessException;
+import dataaccess.interfaces.GameDAO;
+import model.GameData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class CachingGameDAOTests {
+
+    private static final int E2E4 = Move.of(12, 28);
+    private static final int E7E5 = Move.of(52, 36);
+
+    private MemoryGameDAO backing;
+    private CachingGameDAO cache;
+
+    @BeforeEach
+    void setUp() throws DataAccessException {
+        backing = new MemoryGameDAO();
+        cache = new CachingGameDAO(backing, 60_000, 60_000);
+        cache.createGame(new GameData(1, "white", "black", "cached", new ChessGame()));
+    }
+
+    @AfterEach
+    void tearDown() throws DataAccessException {
+        cache.close();
+    }
+
+    @Test
+    public void getGameHandsOutCopies() throws DataAccessException {
+        GameData first = cache.getGame(1);
+        first.game().makeMove(E2E4);
+        GameData second = cache.getGame(1);
+        assertNotSame(first.game(), second.game());
+        assertEquals(0, second.game().getPly());
+        assertEquals(new ChessGame(), second.game());
+    }
+
+    @Test
+    public void updateIsWrittenOnFlush() throws DataAccessException {
+        ChessGame played = new ChessGame();
+        played.makeMove(E2E4);
+        cache.updateGame(1, new GameData(1, "white", "black", "cached", played));
+        assertEquals(0, backing.getGame(1).game().getPly());
+        assertEquals(1, cache.getGame(1).game().getPly());
+        cache.flush();
+        assertEquals(played, backing.getGame(1).game());
+        assertEquals(1, backing.getGame(1).game().getPly());
+    }
+
+    @Test
+    public void appendedMoveIsPlayedOnCachedCopy() throws DataAccessException {
+        cache.getGame(1);
+        cache.appendMove(1, 1, E2E4);
+        cache.appendMove(1, 2, E7E5);
+        GameData game = cache.getGame(1);
+        assertEquals(2, game.game().getPly());
+        assertEquals(ChessGame.TeamColor.WHITE, game.game().getTeamTurn());
+        assertArrayEquals(new int[] {E2E4, E7E5}, backing.loadMoves(1, 0));
+    }
+
+    @Test
+    public void moveAppendedDuringLoadIsNotLost() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch appended = new CountDownLatch(1);
+        MemoryGameDAO slow = new MemoryGameDAO() {
+            @Override
+            public GameData getGame(int gameID) {
+                GameData row = super.getGame(gameID);
+                GameData snapshot = new GameData(gameID, row.whiteUsername(), row.blackUsername(), row.gameName(), new ChessGame(row.game()));
+                loading.countDown();
+                try {
+                    appended.await(200, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return snapshot;
+            }
+        };
+        slow.createGame(new GameData(2, "white", "black", "slow", new ChessGame()));
+        CachingGameDAO racing = new CachingGameDAO(slow, 60_000, 60_000);
+        try {
+            Thread reader = Thread.ofVirtual().start(() -> {
+                try {
+                    racing.getGame(2);
+                } catch (DataAccessException ex) {
+                    throw new RuntimeException(ex);
+                }
+            });
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Thread writer = Thread.ofVirtual().start(() -> {
+                try {
+                    racing.appendMove(2, 1, E2E4);
+                } catch (DataAccessException ex) {
+                    throw new RuntimeException(ex);
+                }
+                appended.countDown();
+            });
+            reader.join();
+            writer.join();
+            assertEquals(1, racing.getGame(2).game().getPly());
+        } finally {
+            racing.close();
+        }
+    }
+
+    @Test
+    public void finishedGameIsFlushedAndDropped() throws DataAccessException {
+        ChessGame finished = new ChessGame();
+        finished.setTeamTurn(ChessGame.TeamColor.FINISHED);
+        cache.updateGame(1, new GameData(1, "white", "black", "cached", finished));
+        assertEquals(ChessGame.TeamColor.FINISHED, backing.getGame(1).game().getTeamTurn());
+        //dropped, so a change made behind the cache is seen on the next read
+        backing.updateGame(1, new GameData(1, "white", "black", "renamed", new ChessGame()));
+        assertEquals("renamed", cache.getGame(1).gameName());
+    }
+
+    @Test
+    public void idleGameIsEvicted() throws Exception {
+        CachingGameDAO evicting = new CachingGameDAO(backing, 10, 1);
+        try {
+            evicting.getGame(1);
+            backing.updateGame(1, new GameData(1, "white", "black", "renamed", new ChessGame()));
+            Thread.sleep(100);
+            assertEquals("renamed", evicting.getGame(1).gameName());
+        } finally {
+            evicting.close();
+        }
+    }
+
+    @Test
+    public void flushFailureIsReportedByNextUpdate() throws DataAccessException {
+        boolean[] failing = {true};
+        CachingGameDAO failingCache = new CachingGameDAO(failingUpdates(backing, failing), 60_000, 60_000);
+        try {
+            failingCache.updateGame(1, new GameData(1, "white", null, "cached", new ChessGame()));
+            assertThrows(DataAccessException.class, failingCache::flush);
+            assertThrows(DataAccessException.class,
+                    () -> failingCache.updateGame(1, new GameData(1, "white", "black", "cached", new ChessGame())));
+            failing[0] = false;
+            failingCache.flush();
+            assertEquals("black", backing.getGame(1).blackUsername());
+        } finally {
+            failingCache.close();
+        }
+    }
+
+    //passes everything through to the target, failing batch writes while the flag is set
+    private static GameDAO failingUpdates(GameDAO target, boolean[] failing) {
+        return (GameDAO) Proxy.newProxyInstance(GameDAO.class.getClassLoader(), new Class<?>[] {GameDAO.class},
+                (proxy, method, args) -> {
+                    if (failing[0] && method.getName().equals("updateGames")) {throw new DataAccessException("database unavailable");}
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+                });
+    }
+}
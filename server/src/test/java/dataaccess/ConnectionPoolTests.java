@@ -0,0 +1,157 @@
+package dataaccess;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dataaccess.exceptions.DataAccessException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+/**
+ * Runs the pool against a stub JDBC driver whose connections only record whether
+ * they were closed, so no database is needed.
+ */
+public class ConnectionPoolTests {
+
+    private static final String URL = "jdbc:pooltest:";
+
+    private static final StubDriver driver = new StubDriver();
+
+    @BeforeAll
+    static void register() throws SQLException {
+        DriverManager.registerDriver(driver);
+    }
+
+    @AfterAll
+    static void deregister() throws SQLException {
+        DriverManager.deregisterDriver(driver);
+    }
+
+    @BeforeEach
+    void reset() {
+        driver.opened.clear();
+    }
+
+    private static ConnectionPool pool(int size, long idleTimeoutMillis, long borrowTimeoutMillis) {
+        return new ConnectionPool(URL, "user", "pass", "chess", size, idleTimeoutMillis, borrowTimeoutMillis, 1, 60_000);
+    }
+
+    @Test
+    public void returnedConnectionIsReused() throws Exception {
+        ConnectionPool pool = pool(2, 60_000, 100);
+        pool.getConnection().close();
+        pool.getConnection().close();
+        assertEquals(1, driver.opened.size());
+        assertFalse(driver.opened.get(0).closed);
+        assertEquals(1, pool.getStats().idle());
+        pool.close();
+        assertTrue(driver.opened.get(0).closed);
+    }
+
+    @Test
+    public void borrowTimesOutWhenPoolIsExhausted() throws Exception {
+        ConnectionPool pool = pool(1, 60_000, 50);
+        Connection held = pool.getConnection();
+        assertThrows(DataAccessException.class, pool::getConnection);
+        held.close();
+        pool.getConnection().close();
+        assertEquals(1, driver.opened.size());
+        pool.close();
+    }
+
+    @Test
+    public void idleConnectionIsEvicted() throws Exception {
+        ConnectionPool pool = pool(1, 20, 100);
+        pool.getConnection().close();
+        Thread.sleep(50);
+        pool.getConnection().close();
+        assertEquals(2, driver.opened.size());
+        assertTrue(driver.opened.get(0).closed);
+        assertFalse(driver.opened.get(1).closed);
+        pool.close();
+    }
+
+    @Test
+    public void brokenConnectionIsClosedNotReturned() throws Exception {
+        ConnectionPool pool = pool(1, 60_000, 100);
+        Connection conn = pool.getConnection();
+        driver.opened.get(0).broken = true;
+        assertThrows(SQLNonTransientConnectionException.class, conn::createStatement);
+        conn.close();
+        assertTrue(driver.opened.get(0).closed);
+        assertEquals(0, pool.getStats().idle());
+        pool.getConnection().close();
+        assertEquals(2, driver.opened.size());
+        pool.close();
+    }
+
+    @Test
+    public void closedPoolRefusesBorrows() throws Exception {
+        ConnectionPool pool = pool(1, 60_000, 100);
+        Connection conn = pool.getConnection();
+        pool.close();
+        assertThrows(DataAccessException.class, pool::getConnection);
+        conn.close();
+        assertTrue(driver.opened.get(0).closed);
+    }
+
+    private static final class StubConnection {
+        private volatile boolean closed;
+        private volatile boolean broken;
+
+        private Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            closed = true;
+                            yield null;
+                        }
+                        case "isClosed" -> closed;
+                        case "isValid" -> !closed && !broken;
+                        case "getAutoCommit" -> true;
+                        case "createStatement", "prepareStatement" -> {
+                            if (broken) {throw new SQLNonTransientConnectionException("link lost", "08S01");}
+                            throw new SQLFeatureNotSupportedException();
+                        }
+                        default -> null;
+                    });
+        }
+    }
+
+    private static final class StubDriver implements Driver {
+        private final ArrayList<StubConnection> opened = new ArrayList<>();
+
+        @Override
+        public Connection connect(String url, Properties info) {
+            if (!acceptsURL(url)) {return null;}
+            StubConnection connection = new StubConnection();
+            synchronized (opened) {opened.add(connection);}
+            return connection.proxy();
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {return url.startsWith(URL);}
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {return new DriverPropertyInfo[0];}
+
+        @Override
+        public int getMajorVersion() {return 1;}
+
+        @Override
+        public int getMinorVersion() {return 0;}
+
+        @Override
+        public boolean jdbcCompliant() {return false;}
+
+        @Override
+        public Logger getParentLogger() {return Logger.getGlobal();}
+    }
+}
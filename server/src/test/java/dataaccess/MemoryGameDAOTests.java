@@ -0,0 +1,75 @@
+package dataaccess;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import chess.ChessGame;
+import dataaccess.exceptions.DataAccessException;
+import model.GameData;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MemoryGameDAOTests {
+
+    @Test
+    public void allocatorReservesOneBlockAtATime() throws DataAccessException {
+        AtomicInteger reservations = new AtomicInteger();
+        AtomicInteger nextFree = new AtomicInteger(1);
+        IdAllocator ids = new IdAllocator(size -> {
+            reservations.incrementAndGet();
+            return nextFree.getAndAdd(size);
+        }, 10);
+        for (int expected = 1; expected <= 25; expected++) {assertEquals(expected, ids.next());}
+        assertEquals(3, reservations.get());
+    }
+
+    @Test
+    public void allocatedIDsAreUniqueAcrossThreads() throws Exception {
+        MemoryGameDAO games = new MemoryGameDAO();
+        Set<Integer> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        ArrayList<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < 250; i++) {
+                    try {
+                        if (!seen.add(games.allocateID())) {duplicates.incrementAndGet();}
+                    } catch (DataAccessException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {thread.join();}
+        assertEquals(0, duplicates.get());
+        assertEquals(2000, seen.size());
+    }
+
+    @Test
+    public void allocatedIDsSkipCreatedGames() throws DataAccessException {
+        MemoryGameDAO games = new MemoryGameDAO();
+        games.createGame(new GameData(5, null, null, "before", new ChessGame()));
+        assertEquals(6, games.allocateID());
+        //created inside the block already reserved
+        games.createGame(new GameData(7, null, null, "inside", new ChessGame()));
+        assertEquals(8, games.allocateID());
+    }
+
+    @Test
+    public void movesMustArriveInPlyOrder() throws DataAccessException {
+        MemoryGameDAO games = new MemoryGameDAO();
+        games.appendMove(1, 1, 100);
+        games.appendMove(1, 2, 200);
+        assertThrows(DataAccessException.class, () -> games.appendMove(1, 2, 300));
+        assertThrows(DataAccessException.class, () -> games.appendMove(1, 4, 300));
+        assertThrows(DataAccessException.class, () -> games.appendMove(2, 2, 300));
+        games.appendMove(1, 3, 300);
+        assertArrayEquals(new int[] {100, 200, 300}, games.loadMoves(1, 0));
+        assertArrayEquals(new int[] {300}, games.loadMoves(1, 2));
+        assertArrayEquals(new int[0], games.loadMoves(1, 5));
+        assertArrayEquals(new int[0], games.loadMoves(2, 0));
+    }
+}
@@ -0,0 +1,50 @@
+package dataaccess;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dataaccess.exceptions.ServerBusyException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class PasswordHasherTests {
+
+    @Test
+    public void hashAndCheckAgree() {
+        String hashed = PasswordHasher.hash("secret");
+        assertTrue(PasswordHasher.check("secret", hashed));
+        assertFalse(PasswordHasher.check("guess", hashed));
+        assertTrue(PasswordHasher.getStats().hashes() >= 1);
+        assertTrue(PasswordHasher.getStats().checks() >= 2);
+    }
+
+    @Test
+    public void fullQueueIsRefused() throws Exception {
+        ThreadPoolExecutor pool = PasswordHasher.newExecutor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            pool.submit(() -> {
+                release.await();
+                return null;
+            });
+            pool.submit(() -> null);
+            long rejected = PasswordHasher.getStats().rejected();
+            assertThrows(ServerBusyException.class, () -> PasswordHasher.run(pool, () -> "refused"));
+            assertEquals(rejected + 1, PasswordHasher.getStats().rejected());
+        } finally {
+            release.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void hashingResumesAfterClose() {
+        PasswordHasher.hash("before");
+        PasswordHasher.close();
+        assertEquals(0, PasswordHasher.getStats().queued());
+        assertTrue(PasswordHasher.check("after", PasswordHasher.hash("after")));
+    }
+}
@@ -0,0 +1,46 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import dataaccess.exceptions.ServerBusyException;
+import io.javalin.http.Handler;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+//handlers here ignore their context, so null stands in for one
+public class BulkheadTests {
+
+    @Test
+    public void fullBulkheadTurnsRequestsAway() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 50);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Handler slow = bulkhead.wrap(context -> {
+            running.countDown();
+            release.await();
+        });
+        Thread holder = Thread.ofVirtual().start(() -> {
+            try {
+                slow.handle(null);
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        ServerBusyException busy = assertThrows(ServerBusyException.class, () -> bulkhead.wrap(context -> {}).handle(null));
+        assertEquals("Error: too many test requests", busy.getMessage());
+        release.countDown();
+        holder.join();
+        bulkhead.wrap(context -> {}).handle(null);
+    }
+
+    @Test
+    public void failingHandlerReleasesItsPermit() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 50);
+        Handler failing = bulkhead.wrap(context -> {throw new IllegalStateException("broken");});
+        assertThrows(IllegalStateException.class, () -> failing.handle(null));
+        assertThrows(IllegalStateException.class, () -> failing.handle(null));
+    }
+}
@@ -0,0 +1,103 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import chess.ChessGame;
+import dataaccess.MemoryAuthDAO;
+import dataaccess.MemoryGameDAO;
+import dataaccess.exceptions.AlreadyTakenException;
+import dataaccess.exceptions.BadRequestException;
+import dataaccess.exceptions.DataAccessException;
+import dataaccess.exceptions.InvalidAuthorizationException;
+import model.AuthData;
+import model.GameData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import request.JoinRequest;
+import request.ListRequest;
+import result.ListResult;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Game service checks that need no database, run against the in-memory DAOs
+ */
+public class GameServiceTests {
+
+    private MemoryAuthDAO aDAO;
+    private MemoryGameDAO gDAO;
+    private Game gameService;
+
+    @BeforeEach
+    void setUp() {
+        aDAO = new MemoryAuthDAO();
+        gDAO = new MemoryGameDAO();
+        gameService = new Game(aDAO, gDAO);
+    }
+
+    @Test
+    void concurrentJoinsTakeEachSeatOnce() throws Exception {
+        gDAO.createGame(new GameData(1, null, null, "contested", new ChessGame()));
+        int players = 20;
+        for (int i = 0; i < players; i++) {aDAO.createAuth(new AuthData("token" + i, "player" + i));}
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger joined = new AtomicInteger();
+        AtomicInteger taken = new AtomicInteger();
+        ArrayList<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            String token = "token" + i;
+            String color = (i % 2 == 0) ? "WHITE" : "BLACK";
+            threads.add(Thread.ofVirtual().start(() -> {
+                try {
+                    start.await();
+                    gameService.joinGame(token, new JoinRequest(color, 1));
+                    joined.incrementAndGet();
+                } catch (AlreadyTakenException ex) {
+                    taken.incrementAndGet();
+                } catch (DataAccessException | InterruptedException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread thread : threads) {thread.join();}
+        assertEquals(2, joined.get());
+        assertEquals(players - 2, taken.get());
+        GameData game = gDAO.getGame(1);
+        assertNotNull(game.whiteUsername());
+        assertNotNull(game.blackUsername());
+    }
+
+    @Test
+    void listRejectsBadRequests() {
+        aDAO.createAuth(new AuthData("token", "player"));
+        assertThrows(InvalidAuthorizationException.class, () -> gameService.listGames("stale", ListRequest.ALL));
+        assertThrows(BadRequestException.class, () -> gameService.listGames("token", new ListRequest(null, 0, false, null, null)));
+        assertThrows(BadRequestException.class, () -> gameService.listGames("token", new ListRequest(null, null, false, null, "paused")));
+    }
+
+    @Test
+    void listPagesWithCursor() throws DataAccessException {
+        aDAO.createAuth(new AuthData("token", "player"));
+        for (int id = 1; id <= 5; id++) {gDAO.createGame(new GameData(id, null, null, "game" + id, new ChessGame()));}
+        ListResult first = gameService.listGames("token", new ListRequest(null, 2, false, null, ListRequest.ACTIVE));
+        assertEquals(2, first.getArray().size());
+        assertEquals(2, first.getNextCursor());
+        ListResult last = gameService.listGames("token", new ListRequest(4, 2, false, null, null));
+        assertEquals(1, last.getArray().size());
+        assertEquals(5, last.getArray().get(0).gameID());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void listCapsPageSize() throws DataAccessException {
+        aDAO.createAuth(new AuthData("token", "player"));
+        for (int id = 1; id <= 150; id++) {gDAO.createGame(new GameData(id, null, null, "game" + id, new ChessGame()));}
+        ListResult page = gameService.listGames("token", new ListRequest(null, 1000, false, null, null));
+        assertEquals(100, page.getArray().size());
+        assertEquals(100, page.getNextCursor());
+    }
+}
@@ -0,0 +1,154 @@
+package websockets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import chess.ChessGame;
+import dataaccess.MemoryGameDAO;
+import dataaccess.exceptions.DataAccessException;
+import dataaccess.exceptions.ServerBusyException;
+import model.GameData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ActiveGamesTests {
+
+    private AtomicInteger loads;
+    private ActiveGames games;
+
+    @BeforeEach
+    void setUp() {
+        loads = new AtomicInteger();
+        MemoryGameDAO gDAO = new MemoryGameDAO() {
+            @Override
+            public GameData getGame(int gameID) {
+                loads.incrementAndGet();
+                return super.getGame(gameID);
+            }
+        };
+        gDAO.createGame(new GameData(1, "white", "black", "active", new ChessGame()));
+        games = new ActiveGames(gDAO, 1, 200);
+    }
+
+    @AfterEach
+    void tearDown() {
+        games.close(1000);
+    }
+
+    @Test
+    public void commandsForAGameRunInOrder() throws Exception {
+        ActiveGames roomy = new ActiveGames(new MemoryGameDAO(), 1000, 1000);
+        List<Integer> ran = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 200; i++) {
+            int n = i;
+            roomy.submit(7, game -> ran.add(n), ex -> fail(ex));
+        }
+        assertTrue(roomy.close(5000));
+        assertEquals(200, ran.size());
+        for (int i = 0; i < 200; i++) {assertEquals(i, ran.get(i));}
+    }
+
+    @Test
+    public void liveGameIsLoadedOnce() throws Exception {
+        CountDownLatch done = new CountDownLatch(2);
+        games.submit(1, game -> {
+            assertNotNull(game.data());
+            done.countDown();
+        }, ex -> fail(ex));
+        games.submit(1, game -> {
+            assertEquals("active", game.data().gameName());
+            done.countDown();
+        }, ex -> fail(ex));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void failureIsReportedAndReleasesItsPermit() throws Exception {
+        CountDownLatch failed = new CountDownLatch(1);
+        games.submit(1, game -> {throw new DataAccessException("broken");}, ex -> {
+            assertEquals("broken", ex.getMessage());
+            failed.countDown();
+        });
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        CountDownLatch ran = new CountDownLatch(1);
+        games.submit(1, game -> ran.countDown(), ex -> fail(ex));
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void fullLimitRefusesCommands() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        games.submit(1, game -> release.await(), ex -> fail(ex));
+        assertThrows(ServerBusyException.class, () -> games.submit(2, game -> {}, ex -> fail(ex)));
+        //bookkeeping is not held to the limit
+        games.retireWhen(2, () -> true);
+        release.countDown();
+        CountDownLatch ran = new CountDownLatch(1);
+        games.submit(2, game -> ran.countDown(), ex -> fail(ex));
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void retireWhenChecksItsConditionAfterQueuedCommands() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        boolean[] watched = {true};
+        games.submit(1, game -> {
+            release.await();
+            watched[0] = false;
+        }, ex -> fail(ex));
+        games.retireWhen(1, () -> !watched[0]);
+        assertEquals(1, games.size());
+        release.countDown();
+        assertTrue(games.close(5000));
+        assertEquals(0, games.size());
+    }
+
+    @Test
+    public void retireWhenKeepsAGameStillInUse() throws Exception {
+        games.retireWhen(1, () -> false);
+        assertTrue(games.close(5000));
+        assertEquals(1, games.size());
+    }
+
+    @Test
+    public void retiredGameIsLoadedAgain() throws Exception {
+        CountDownLatch first = new CountDownLatch(1);
+        games.submit(1, game -> {
+            game.data();
+            first.countDown();
+        }, ex -> fail(ex));
+        assertTrue(first.await(5, TimeUnit.SECONDS));
+        games.retireWhen(1, () -> true);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (games.size() > 0 && System.nanoTime() < deadline) {Thread.sleep(1);}
+        assertEquals(0, games.size());
+        CountDownLatch second = new CountDownLatch(1);
+        games.submit(1, game -> {
+            game.data();
+            second.countDown();
+        }, ex -> fail(ex));
+        assertTrue(second.await(5, TimeUnit.SECONDS));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void closeWaitsForQueuedCommandsThenRefusesMore() throws Exception {
+        AtomicInteger ran = new AtomicInteger();
+        games.submit(1, game -> {
+            Thread.sleep(50);
+            ran.incrementAndGet();
+        }, ex -> fail(ex));
+        assertTrue(games.close(5000));
+        assertEquals(1, ran.get());
+        assertThrows(ServerBusyException.class, () -> games.submit(1, game -> {}, ex -> fail(ex)));
+        games.retireWhen(1, () -> true);
+    }
+}
@@ -0,0 +1,190 @@
+package websockets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.GameData;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.jupiter.api.Test;
+
+import websocket.messages.LoadGame;
+import websocket.messages.MoveMade;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Outbox policies against a stub session whose writes complete only when the
+ * test says so, so the queue can be filled on purpose
+ */
+public class OutboxTests {
+
+    @Test
+    public void messagesGoOutInOrderOneAtATime() {
+        SlowSession session = new SlowSession();
+        Outbox outbox = new Outbox(session.proxy, 4, ConnectionManager.SlowConsumerPolicy.DROP, () -> fail("resync"));
+        outbox.offer("a", false);
+        outbox.offer("b", false);
+        outbox.offer("c", false);
+        assertEquals(List.of("a"), session.written);
+        session.completeAll();
+        assertEquals(List.of("a", "b", "c"), session.written);
+    }
+
+    @Test
+    public void dropMarksStaleAndAsksForResyncOnceDrained() {
+        SlowSession session = new SlowSession();
+        AtomicInteger resyncs = new AtomicInteger();
+        Outbox outbox = new Outbox(session.proxy, 2, ConnectionManager.SlowConsumerPolicy.DROP, resyncs::incrementAndGet);
+        outbox.offer("in flight", false);
+        outbox.offer("n1", false);
+        outbox.offer("n2", false);
+        assertFalse(outbox.stale());
+        assertTrue(outbox.offer("dropped", false));
+        assertTrue(outbox.stale());
+        session.completeAll();
+        assertEquals(List.of("in flight", "n1", "n2"), session.written);
+        assertEquals(1, resyncs.get());
+        assertFalse(outbox.stale());
+    }
+
+    @Test
+    public void coalesceLeavesSnapshotsAloneUntilFull() {
+        SlowSession session = new SlowSession();
+        Outbox outbox = new Outbox(session.proxy, 4, ConnectionManager.SlowConsumerPolicy.COALESCE, () -> fail("resync"));
+        outbox.offer("in flight", false);
+        outbox.offer("s1", true);
+        outbox.offer("s2", true);
+        session.completeAll();
+        assertEquals(List.of("in flight", "s1", "s2"), session.written);
+    }
+
+    @Test
+    public void coalesceMakesRoomForSnapshotsWhenFull() {
+        SlowSession session = new SlowSession();
+        AtomicInteger resyncs = new AtomicInteger();
+        Outbox outbox = new Outbox(session.proxy, 2, ConnectionManager.SlowConsumerPolicy.COALESCE, resyncs::incrementAndGet);
+        outbox.offer("in flight", false);
+        outbox.offer("n1", false);
+        outbox.offer("n2", false);
+        //the oldest notification makes way for a snapshot, which brings the client up to date
+        outbox.offer("s1", true);
+        assertFalse(outbox.stale());
+        //a newer snapshot supersedes the queued one
+        outbox.offer("s2", true);
+        //anything else is dropped
+        outbox.offer("n3", false);
+        assertTrue(outbox.stale());
+        session.completeAll();
+        assertEquals(List.of("in flight", "n2", "s2"), session.written);
+        assertEquals(1, resyncs.get());
+    }
+
+    @Test
+    public void disconnectClosesWhenFull() {
+        SlowSession session = new SlowSession();
+        Outbox outbox = new Outbox(session.proxy, 1, ConnectionManager.SlowConsumerPolicy.DISCONNECT, () -> fail("resync"));
+        outbox.offer("in flight", false);
+        assertTrue(outbox.offer("queued", false));
+        assertFalse(outbox.offer("overflow", true));
+        assertFalse(outbox.offer("after", false));
+        session.completeAll();
+        assertEquals(List.of("in flight"), session.written);
+    }
+
+    @Test
+    public void closeAfterFlushWritesQueueThenCloses() {
+        SlowSession session = new SlowSession();
+        Outbox outbox = new Outbox(session.proxy, 4, ConnectionManager.SlowConsumerPolicy.DROP, () -> fail("resync"));
+        outbox.offer("a", false);
+        outbox.offer("last", false);
+        outbox.closeAfterFlush();
+        outbox.offer("ignored", false);
+        assertTrue(session.open);
+        session.completeAll();
+        assertEquals(List.of("a", "last"), session.written);
+        assertFalse(session.open);
+    }
+
+    @Test
+    public void failedWriteClosesSession() {
+        SlowSession session = new SlowSession();
+        Outbox outbox = new Outbox(session.proxy, 4, ConnectionManager.SlowConsumerPolicy.DROP, () -> fail("resync"));
+        outbox.offer("a", false);
+        outbox.offer("b", false);
+        session.pending.poll().writeFailed(new IllegalStateException("reset"));
+        assertFalse(session.open);
+        assertFalse(outbox.offer("c", false));
+        assertEquals(List.of("a"), session.written);
+    }
+
+    @Test
+    public void staleDeltaSessionGetsFullGame() {
+        ConnectionManager connections = new ConnectionManager(1, ConnectionManager.SlowConsumerPolicy.DROP);
+        ArrayList<Session> resynced = new ArrayList<>();
+        connections.setResyncListener(resynced::add);
+        SlowSession session = new SlowSession();
+        connections.add(1, session.proxy);
+        connections.setMoveDeltas(session.proxy, true);
+
+        GameData game = new GameData(1, "white", "black", "deltas", new ChessGame());
+        MoveMade delta = new MoveMade(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null), game.game(), "");
+        LoadGame full = new LoadGame(game);
+        connections.broadcast(1, null, full, delta);
+        connections.broadcast(1, null, full, delta);
+        //queue full, so this delta is dropped and the session has missed a move
+        connections.broadcast(1, null, full, delta);
+        session.pending.poll().writeSuccess();
+        connections.broadcast(1, null, full, delta);
+        session.completeAll();
+
+        assertEquals(3, session.written.size());
+        assertFalse(session.written.get(1).contains("LOAD_GAME"));
+        assertTrue(session.written.get(2).contains("LOAD_GAME"));
+        assertTrue(resynced.isEmpty());
+    }
+
+    //a session whose writes stay in flight until completed by the test
+    private static final class SlowSession {
+        private final List<String> written = new ArrayList<>();
+        private final ArrayDeque<WriteCallback> pending = new ArrayDeque<>();
+        private boolean open = true;
+        private final Session proxy;
+
+        private SlowSession() {
+            RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(RemoteEndpoint.class.getClassLoader(),
+                    new Class<?>[] {RemoteEndpoint.class}, (p, method, args) -> {
+                        if (method.getName().equals("sendString") && args.length == 2) {
+                            written.add((String) args[0]);
+                            pending.add((WriteCallback) args[1]);
+                        }
+                        return null;
+                    });
+            proxy = (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[] {Session.class},
+                    (p, method, args) -> switch (method.getName()) {
+                        case "getRemote" -> remote;
+                        case "isOpen" -> open;
+                        case "close" -> {
+                            open = false;
+                            yield null;
+                        }
+                        case "equals" -> p == args[0];
+                        case "hashCode" -> System.identityHashCode(p);
+                        case "toString" -> "SlowSession";
+                        default -> null;
+                    });
+        }
+
+        private void completeAll() {
+            WriteCallback callback;
+            while ((callback = pending.poll()) != null) {callback.writeSuccess();}
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package websockets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import chess.ChessGame;
+import dataaccess.MemoryAuthDAO;
+import dataaccess.MemoryGameDAO;
+import dataaccess.exceptions.DataAccessException;
+import io.javalin.websocket.WsMessageContext;
+import model.AuthData;
+import model.GameData;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the handler with stub sessions that write instantly and record what
+ * they were sent, against the in-memory DAOs
+ */
+public class WebSocketHandlerTests {
+
+    private MemoryAuthDAO aDAO;
+    private WebSocketHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        aDAO = new MemoryAuthDAO();
+        MemoryGameDAO gDAO = new MemoryGameDAO();
+        aDAO.createAuth(new AuthData("tokenA", "alice"));
+        aDAO.createAuth(new AuthData("tokenB", "bob"));
+        gDAO.createGame(new GameData(1, "alice", null, "bound", new ChessGame()));
+        handler = new WebSocketHandler(aDAO, gDAO, 100, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        handler.close(1000);
+    }
+
+    @Test
+    public void connectToMissingGameKeepsTheCurrentOne() throws Exception {
+        StubSession alice = new StubSession();
+        send(alice, connect("tokenA", 1));
+        alice.await(1);
+        send(alice, connect("tokenA", 99));
+        alice.await(2);
+        assertTrue(alice.sent.get(1).contains("Invalid GameID"));
+
+        StubSession bob = new StubSession();
+        send(bob, connect("tokenB", 1));
+        alice.await(3);
+        assertTrue(alice.sent.get(2).contains("bob"));
+    }
+
+    @Test
+    public void revokeClosesOnlyTheTokensSessions() throws Exception {
+        StubSession alice = new StubSession();
+        StubSession bob = new StubSession();
+        send(alice, connect("tokenA", 1));
+        alice.await(1);
+        send(bob, connect("tokenB", 1));
+        bob.await(1);
+        alice.await(2);
+
+        handler.revoke("tokenA");
+        alice.await(3);
+        assertTrue(alice.sent.get(2).contains("authorization revoked"));
+        assertFalse(alice.open);
+        assertTrue(bob.open);
+    }
+
+    @Test
+    public void unknownTokenIsClosed() throws Exception {
+        StubSession stranger = new StubSession();
+        send(stranger, connect("nobody", 1));
+        stranger.await(1);
+        assertTrue(stranger.sent.get(0).contains("unauthorized"));
+        assertFalse(stranger.open);
+    }
+
+    private void send(StubSession session, String message) throws DataAccessException {
+        handler.handleMessage(new WsMessageContext("stub", session.proxy, message));
+    }
+
+    private static String connect(String token, int gameID) {
+        return "{\"commandType\":\"CONNECT\",\"authToken\":\"" + token + "\",\"gameID\":" + gameID + "}";
+    }
+
+    //a session whose writes complete at once, recording each message
+    private static final class StubSession {
+        private final List<String> sent = new CopyOnWriteArrayList<>();
+        private volatile boolean open = true;
+        private final Session proxy;
+
+        private StubSession() {
+            RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(RemoteEndpoint.class.getClassLoader(),
+                    new Class<?>[] {RemoteEndpoint.class}, (p, method, args) -> {
+                        if (method.getName().equals("sendString") && args.length == 2) {
+                            sent.add((String) args[0]);
+                            ((WriteCallback) args[1]).writeSuccess();
+                        }
+                        return null;
+                    });
+            proxy = (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[] {Session.class},
+                    (p, method, args) -> switch (method.getName()) {
+                        case "getRemote" -> remote;
+                        case "isOpen" -> open;
+                        case "close" -> {
+                            open = false;
+                            yield null;
+                        }
+                        case "equals" -> p == args[0];
+                        case "hashCode" -> System.identityHashCode(p);
+                        case "toString" -> "StubSession";
+                        default -> null;
+                    });
+        }
+
+        private void await(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (sent.size() < count && System.nanoTime() < deadline) {Thread.sleep(1);}
+            assertTrue(sent.size() >= count, "expected " + count + " messages, got " + sent);
+        }
+    }
+}
@@ -1,19 +1,51 @@
 package chess;
 
 import java.util.Arrays;
-import java.util.Objects;
+
+import chess.positioning.Attacks;
+import chess.positioning.Zobrist;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
  * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
+ * <p>
+ * Pieces are stored as bitboards: one 64-bit mask per piece type and color, plus
+ * an occupancy mask per color. Square {@code s} maps to bit {@code s}, where
+ * {@code s = (row - 1) * 8 + (column - 1)}, so a1 is bit 0 and h8 is bit 63.
+ * A Zobrist hash of the pieces (see {@link Zobrist}) is kept up to date as
+ * pieces are added and removed.
  */
 public class ChessBoard {
 
-    public ChessPiece[][] board = new ChessPiece[8][8];
+    private static final ChessGame.TeamColor[] TEAMS = ChessGame.TeamColor.values();
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final ChessPiece[] PIECES = new ChessPiece[TEAMS.length * TYPES.length];
+
+    static {
+        for (int i = 0; i < PIECES.length; i++) {
+            PIECES[i] = new ChessPiece(TEAMS[i / TYPES.length], TYPES[i % TYPES.length]);
+        }
+    }
+
+    private final long[] pieces = new long[TEAMS.length * TYPES.length];
+    private final long[] teams = new long[TEAMS.length];
+    private transient long hash;
+    private transient boolean hashed;
 
     public ChessBoard() {}
+
+    /**
+     * @param other board to copy; the copy shares no state with it
+     */
+    public ChessBoard(ChessBoard other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+        System.arraycopy(other.teams, 0, teams, 0, teams.length);
+        hash = other.hash;
+        hashed = other.hashed;
+    }
+
     /**
      * Adds a chess piece to the chessboard
      *
@@ -21,7 +53,9 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        this.board[position.getRow()-1][position.getColumn()-1] = piece;
+        int square = square(position);
+        clearSquare(square);
+        if (piece != null) {setSquare(square, index(piece.getTeamColor(), piece.getPieceType()));}
     }
 
     /**
@@ -32,7 +66,8 @@ public class ChessBoard {
      * position
      */
     public ChessPiece getPiece(ChessPosition position) {
-        return this.board[position.getRow()-1][position.getColumn()-1];
+        int index = pieceIndex(square(position));
+        return (index < 0) ? null : PIECES[index];
     }
 
     /**
@@ -40,30 +75,111 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        ChessPiece rook = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
-        ChessPiece knight = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
-        ChessPiece bishop = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
-        ChessPiece queen = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
-        ChessPiece king = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
-        ChessPiece pawn = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
-
-        ChessPiece wRook = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
-        ChessPiece wKnight = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
-        ChessPiece wBishop = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
-        ChessPiece wQueen = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN);
-        ChessPiece wKing = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
-        ChessPiece wPawn = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
-
-        board = new ChessPiece[][]{
-                {wRook, wKnight, wBishop, wQueen, wKing, wBishop.copy(), wKnight.copy(), wRook.copy()},
-                {wPawn, wPawn.copy(), wPawn.copy(), wPawn.copy(), wPawn.copy(), wPawn.copy(), wPawn.copy(), wPawn.copy()},
-                new ChessPiece[8],
-                new ChessPiece[8],
-                new ChessPiece[8],
-                new ChessPiece[8],
-                {pawn, pawn.copy(), pawn.copy(), pawn.copy(), pawn.copy(), pawn.copy(), pawn.copy(), pawn.copy()},
-                {rook, knight, bishop, queen, king, bishop.copy(), knight.copy(), rook.copy()},
-        };
+        Arrays.fill(pieces, 0L);
+        Arrays.fill(teams, 0L);
+        for (ChessGame.TeamColor team : new ChessGame.TeamColor[] {ChessGame.TeamColor.WHITE, ChessGame.TeamColor.BLACK}) {
+            int shift = (team == ChessGame.TeamColor.WHITE) ? 0 : 56;
+            int pawnShift = (team == ChessGame.TeamColor.WHITE) ? 8 : 48;
+            pieces[index(team, ChessPiece.PieceType.ROOK)] = 0x81L << shift;
+            pieces[index(team, ChessPiece.PieceType.KNIGHT)] = 0x42L << shift;
+            pieces[index(team, ChessPiece.PieceType.BISHOP)] = 0x24L << shift;
+            pieces[index(team, ChessPiece.PieceType.QUEEN)] = 0x08L << shift;
+            pieces[index(team, ChessPiece.PieceType.KING)] = 0x10L << shift;
+            pieces[index(team, ChessPiece.PieceType.PAWN)] = 0xFFL << pawnShift;
+        }
+        teams[ChessGame.TeamColor.WHITE.ordinal()] = 0xFFFFL;
+        teams[ChessGame.TeamColor.BLACK.ordinal()] = 0xFFFFL << 48;
+        hashed = false;
+    }
+
+    /**
+     * @return bitboard of the given team's pieces of the given type
+     */
+    public long getPieces(ChessGame.TeamColor team, ChessPiece.PieceType type) {
+        return pieces[index(team, type)];
+    }
+
+    /**
+     * @return bitboard of every square occupied by the given team
+     */
+    public long getTeam(ChessGame.TeamColor team) {
+        return teams[team.ordinal()];
+    }
+
+    /**
+     * @return bitboard of every occupied square
+     */
+    public long getOccupied() {
+        long occupied = 0;
+        for (long team : teams) {occupied |= team;}
+        return occupied;
+    }
+
+    /**
+     * Gets the piece on a square index without going through a ChessPosition
+     *
+     * @param square square index, 0 (a1) to 63 (h8)
+     * @return the piece on that square, or null if it is empty
+     */
+    public ChessPiece getPiece(int square) {
+        int index = pieceIndex(square);
+        return (index < 0) ? null : PIECES[index];
+    }
+
+    /**
+     * Determines if any piece of the given team attacks a square, working outward
+     * from the square instead of generating every enemy move
+     *
+     * @param square   square index to test
+     * @param attacker team doing the attacking
+     * @return True if the square is attacked by the team
+     */
+    public boolean isAttacked(int square, ChessGame.TeamColor attacker) {
+        return isAttacked(square, attacker, getOccupied());
+    }
+
+    /**
+     * Same as {@link #isAttacked(int, ChessGame.TeamColor)}, but sliding attacks are
+     * blocked by the supplied occupancy rather than the board's own
+     */
+    public boolean isAttacked(int square, ChessGame.TeamColor attacker, long occupied) {
+        return (attackers(square, attacker, occupied) != 0);
+    }
+
+    /**
+     * Finds every piece of the given team attacking a square. Each piece type is
+     * looked up from the square outward, so the cost does not depend on team size.
+     *
+     * @return bitboard of the attacking pieces
+     */
+    public long attackers(int square, ChessGame.TeamColor attacker, long occupied) {
+        ChessGame.TeamColor defender = (attacker == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long queens = getPieces(attacker, ChessPiece.PieceType.QUEEN);
+        return (Attacks.knight(square) & getPieces(attacker, ChessPiece.PieceType.KNIGHT))
+                | (Attacks.king(square) & getPieces(attacker, ChessPiece.PieceType.KING))
+                | (Attacks.pawn(defender, square) & getPieces(attacker, ChessPiece.PieceType.PAWN))
+                | (Attacks.rook(square, occupied) & (getPieces(attacker, ChessPiece.PieceType.ROOK) | queens))
+                | (Attacks.bishop(square, occupied) & (getPieces(attacker, ChessPiece.PieceType.BISHOP) | queens));
+    }
+
+    /**
+     * Gets the Zobrist hash of the pieces on the board. It is computed in full the
+     * first time (or after the board was rebuilt, e.g. by deserialization) and
+     * maintained incrementally by {@link #addPiece} after that.
+     *
+     * @return 64-bit hash of the piece placement
+     */
+    public long zobrist() {
+        if (!hashed) {
+            hash = 0;
+            for (int i = 0; i < pieces.length; i++) {
+                for (long bits = pieces[i]; bits != 0; bits &= bits - 1) {
+                    hash ^= Zobrist.piece(i, Long.numberOfTrailingZeros(bits));
+                }
+            }
+            hashed = true;
+        }
+        return hash;
     }
 
     @Override
@@ -71,36 +187,89 @@ public class ChessBoard {
         if (this == o) {return true;}
         if (o == null || getClass() != o.getClass()) {return false;}
         ChessBoard comp = (ChessBoard)o;
-        return Objects.deepEquals(this.board, comp.board);
+        return Arrays.equals(this.pieces, comp.pieces);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(this.board);
+        long key = zobrist();
+        return (int) (key ^ (key >>> 32));
     }
 
     @Override
     public String toString() {
         StringBuilder tempBoard = new StringBuilder();
-        for (ChessPiece[] row : this.board) {
-            StringBuilder tempColumn = new StringBuilder();
-            tempColumn.append("|");
-            for (ChessPiece col : row) {
-                if (col == null) {
-                    tempColumn.append(" ");
-                } else {
-                    tempColumn.append(col);
-                }
-                tempColumn.append("|");
+        for (int row = 7; row >= 0; row--) {
+            tempBoard.append("|");
+            for (int col = 0; col < 8; col++) {
+                ChessPiece piece = getPiece(row * 8 + col);
+                tempBoard.append(piece == null ? " " : piece);
+                tempBoard.append("|");
             }
-            tempBoard.append(tempColumn.reverse());
             tempBoard.append("\n");
         }
-        tempBoard.reverse();
         return tempBoard.toString().strip();
     }
 
+    /**
+     * @return a snapshot of the board as a [row][column] array, built from the bitboards
+     */
     public ChessPiece[][] getBoard() {
+        ChessPiece[][] board = new ChessPiece[8][8];
+        for (int square = 0; square < 64; square++) {
+            board[square / 8][square % 8] = getPiece(square);
+        }
         return board;
     }
+
+    public static int square(ChessPosition position) {
+        return (position.getRow() - 1) * 8 + (position.getColumn() - 1);
+    }
+
+    public static ChessPosition position(int square) {
+        return new ChessPosition(square / 8 + 1, square % 8 + 1);
+    }
+
+    static int index(ChessGame.TeamColor team, ChessPiece.PieceType type) {
+        return team.ordinal() * TYPES.length + type.ordinal();
+    }
+
+    /**
+     * @return piece index (see {@link #index}) on a square, or -1 if it is empty
+     */
+    int pieceIndex(int square) {
+        long bit = 1L << square;
+        for (int team = 0; team < teams.length; team++) {
+            if ((teams[team] & bit) == 0) {continue;}
+            for (int i = team * TYPES.length; i < (team + 1) * TYPES.length; i++) {
+                if ((pieces[i] & bit) != 0) {return i;}
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Replaces whatever is on a square with the piece of the given index, or
+     * empties it when the index is negative
+     */
+    void put(int square, int index) {
+        clearSquare(square);
+        if (index >= 0) {setSquare(square, index);}
+    }
+
+    private void clearSquare(int square) {
+        int index = pieceIndex(square);
+        if (index < 0) {return;}
+        long mask = ~(1L << square);
+        pieces[index] &= mask;
+        teams[index / TYPES.length] &= mask;
+        if (hashed) {hash ^= Zobrist.piece(index, square);}
+    }
+
+    private void setSquare(int square, int index) {
+        long bit = 1L << square;
+        pieces[index] |= bit;
+        teams[index / TYPES.length] |= bit;
+        if (hashed) {hash ^= Zobrist.piece(index, square);}
+    }
 }
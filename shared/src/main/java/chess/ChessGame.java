@@ -1,8 +1,12 @@
 package chess;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Objects;
-import java.util.HashSet;
+
+import chess.positioning.Attacks;
+import chess.positioning.Move;
+import chess.positioning.MoveGenerator;
+import chess.positioning.Zobrist;
 
 /**
  * For a class that can manage a chess game, making moves on a board
@@ -12,12 +16,15 @@ import java.util.HashSet;
  */
 public class ChessGame {
 
+    private static final TeamColor[] TEAMS = TeamColor.values();
+    private static final int TYPES = ChessPiece.PieceType.values().length;
+
     private TeamColor teamTurn;
     private ChessBoard board;
-    private HashSet<ChessPosition> wTeam;
-    private HashSet<ChessPosition> bTeam;
-    private ChessPosition wKingLoc;
-    private ChessPosition bKingLoc;
+    private int ply;
+    private transient int[] history = new int[64];
+    private transient int undoDepth;
+    private transient int[] scratch;
 
     public ChessGame() {
         setTeamTurn(TeamColor.WHITE);
@@ -26,6 +33,18 @@ public class ChessGame {
         setBoard(tempBoard);
     }
 
+    /**
+     * Copies the position, side to move and ply of another game, but not its undo
+     * history, so the copy cannot take back moves made before it was taken
+     *
+     * @param other game to copy
+     */
+    public ChessGame(ChessGame other) {
+        teamTurn = other.teamTurn;
+        board = new ChessBoard(other.board);
+        ply = other.ply;
+    }
+
     /**
      * @return Which team's turn it is
      */
@@ -59,34 +78,25 @@ public class ChessGame {
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        ChessPiece hero = board.getPiece(startPosition);
+        int square = ChessBoard.square(startPosition);
+        ChessPiece hero = board.getPiece(square);
         if (hero == null) {return null;}
-        ChessPosition kingPos;
-        HashSet<ChessPosition> opTeam;
-        TeamColor heroColor = hero.getTeamColor();
-        if (heroColor == TeamColor.WHITE) {
-            kingPos = wKingLoc;
-            opTeam = bTeam;
-        } else {
-            kingPos = bKingLoc;
-            opTeam = wTeam;
-        }
-        var moves = (HashSet<ChessMove>) hero.pieceMoves(board, startPosition);
-        HashSet<ChessMove> movesReturnable = new HashSet<>(moves);
-        if (hero.getPieceType() != ChessPiece.PieceType.KING) {board.addPiece(startPosition, null);}
-        HashSet<ChessMove> dangers = checkCheckBy(opTeam, kingPos);
-        for (ChessMove heroMove : moves) {
-            if (hero.getPieceType() == ChessPiece.PieceType.KING) {
-                if (!(kingCheckBy(opTeam, heroMove.getEndPosition(), heroColor).isEmpty())) {movesReturnable.remove(heroMove);}
-            }
-            else {
-                for (ChessMove danger : dangers) {
-                    if (!blocks(heroMove.getEndPosition(), danger)) {movesReturnable.remove(heroMove);}
-                }
-            }
-        }
-        if (hero.getPieceType() != ChessPiece.PieceType.KING) {board.addPiece(startPosition, hero);}
-        return movesReturnable;
+        int[] moves = new int[MoveGenerator.MAX_PIECE_MOVES];
+        int count = MoveGenerator.generate(board, square, moves, 0);
+        count = filterLegal(hero.getTeamColor(), moves, count);
+        return Move.toChessMoves(moves, count);
+    }
+
+    /**
+     * Writes every valid move of a team into a buffer as packed ints (see {@link Move})
+     *
+     * @param team   team to generate moves for
+     * @param buffer destination, at least {@link MoveGenerator#MAX_MOVES} long
+     * @return number of moves written
+     */
+    public int legalMoves(TeamColor team, int[] buffer) {
+        int count = MoveGenerator.generateAll(board, team, buffer, 0);
+        return filterLegal(team, buffer, count);
     }
 
     /**
@@ -102,26 +112,66 @@ public class ChessGame {
         if (moves.contains(move)) {
             ChessPiece temp = board.getPiece(move.getStartPosition());
             if (temp.getTeamColor() != teamTurn) {throw new InvalidMoveException("Move attempted out of turn");}
-            HashSet<ChessPosition> team = (temp.getTeamColor() == TeamColor.WHITE) ? wTeam : bTeam;
-            HashSet<ChessPosition> opTeam = (temp.getTeamColor() == TeamColor.WHITE) ? bTeam : wTeam;
-            board.addPiece(move.getStartPosition(), null);
-            team.remove(move.getStartPosition());
-            if (move.getPromotionPiece() != null) {
-                temp = new ChessPiece(temp.getTeamColor(), move.getPromotionPiece());
-            }
-            board.addPiece(move.getEndPosition(), temp);
-            team.add(move.getEndPosition());
-            opTeam.remove(move.getEndPosition());
-            if (temp.getPieceType().equals(ChessPiece.PieceType.KING)) {
-                if (temp.getTeamColor() == TeamColor.WHITE) { wKingLoc = move.getEndPosition(); }
-                else { bKingLoc = move.getEndPosition(); }
-            }
-            setTeamTurn(temp.getTeamColor() == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE);
+            makeMove(Move.pack(move));
         } else {
             throw new InvalidMoveException("Attempted Invalid Move");
         }
     }
 
+    /**
+     * Plays a packed move (see {@link Move}) without validating it, recording
+     * what is needed to take it back with {@link #unmakeMove()}. Intended for
+     * moves produced by {@link #legalMoves}, e.g. when searching.
+     *
+     * @param move packed move to perform
+     */
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int moved = board.pieceIndex(from);
+        int captured = board.pieceIndex(to);
+        if (undoDepth == history.length) {history = Arrays.copyOf(history, undoDepth * 2);}
+        history[undoDepth++] = move | ((moved + 1) << 15) | ((captured + 1) << 20) | (teamTurn.ordinal() << 25);
+
+        ChessPiece.PieceType promotion = Move.promotion(move);
+        int placed = (promotion == null) ? moved : (moved / TYPES) * TYPES + promotion.ordinal();
+        board.put(from, -1);
+        board.put(to, placed);
+        setTeamTurn(opponent(TEAMS[moved / TYPES]));
+        ply++;
+    }
+
+    /**
+     * Takes back the last move made, restoring the moved and captured pieces and
+     * the previous turn
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void unmakeMove() {
+        if (undoDepth == 0) {throw new IllegalStateException("No move to take back");}
+        int undo = history[--undoDepth];
+        board.put(Move.from(undo), ((undo >>> 15) & 0x1F) - 1);
+        board.put(Move.to(undo), ((undo >>> 20) & 0x1F) - 1);
+        setTeamTurn(TEAMS[undo >>> 25]);
+        ply--;
+    }
+
+    /**
+     * @return number of moves made in this game so far
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * Sets the number of moves made so far, e.g. when a game is restored from storage
+     *
+     * @param ply moves made
+     */
+    public void setPly(int ply) {
+        this.ply = ply;
+    }
+
     /**
      * Determines if the given team is in check
      *
@@ -129,7 +179,9 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        return (teamColor == TeamColor.WHITE) ? !checkCheckBy(bTeam, wKingLoc).isEmpty() : !checkCheckBy(wTeam, bKingLoc).isEmpty();
+        long king = board.getPieces(teamColor, ChessPiece.PieceType.KING);
+        if (king == 0) {return false;}
+        return board.isAttacked(Long.numberOfTrailingZeros(king), opponent(teamColor));
     }
 
 
@@ -140,15 +192,7 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        HashSet<ChessMove> teamMoves = new HashSet<>();
-        boolean check = isInCheck(teamColor);
-        if (check) {
-            HashSet<ChessPosition> team = (teamColor == TeamColor.WHITE) ? wTeam : bTeam;
-            for (ChessPosition pos : team) {
-                teamMoves.addAll(validMoves(pos));
-            }
-        }
-        return check && teamMoves.isEmpty();
+        return isInCheck(teamColor) && !hasLegalMove(teamColor);
     }
 
 
@@ -160,10 +204,12 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        HashSet<ChessMove> teamMoves = new HashSet<>();
-        HashSet<ChessPosition> team = (teamColor == TeamColor.WHITE) ? wTeam : bTeam;
-        for (ChessPosition pos : team) {teamMoves.addAll(validMoves(pos));}
-        return !isInCheck(teamColor) && teamMoves.isEmpty();
+        return !isInCheck(teamColor) && !hasLegalMove(teamColor);
+    }
+
+    private boolean hasLegalMove(TeamColor team) {
+        if (scratch == null) {scratch = new int[MoveGenerator.MAX_MOVES];}
+        return legalMoves(team, scratch) != 0;
     }
 
     /**
@@ -173,21 +219,6 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
-        wTeam = new HashSet<>();
-        bTeam = new HashSet<>();
-        for (int r = 1; r <= 8; r++) {
-            for (int c = 1; c <= 8; c++) {
-                ChessPiece temp = board.getPiece(new ChessPosition(r, c));
-                if (temp == null) {continue;}
-                if (temp.getTeamColor() == TeamColor.WHITE) {
-                    wTeam.add(new ChessPosition(r, c));
-                    if (temp.getPieceType() == ChessPiece.PieceType.KING) {wKingLoc = new ChessPosition(r, c);}
-                } else {
-                    bTeam.add(new ChessPosition(r, c));
-                    if (temp.getPieceType() == ChessPiece.PieceType.KING) {bKingLoc = new ChessPosition(r, c);}
-                }
-            }
-        }
     }
 
     /**
@@ -199,57 +230,72 @@ public class ChessGame {
         return board;
     }
 
-    private HashSet<ChessMove> checkCheckBy(HashSet<ChessPosition> team, ChessPosition kingPos) throws UntrackedPieceException {
-        var snipers = new HashSet<ChessMove>();
-        for (ChessPosition p : team) {
-            ChessPiece temp = board.getPiece(p);
-            if (temp == null) {throw new UntrackedPieceException(String.format("Position %s returned null when in team set.", p));}
-            for (ChessMove move : temp.pieceMoves(board, p)) {
-                if (kingPos.equals(move.getEndPosition())) {snipers.add(move);}
+    /**
+     * Drops the pseudo-legal moves of a team that would leave its king in check,
+     * compacting the survivors to the front of the buffer.
+     * <p>
+     * Checkers and pinned pieces are found once, looking outward from the king.
+     * After that each non-king move is legal only if it lands in the check mask
+     * (captures the checker or blocks its ray) and, when the piece is pinned, stays
+     * on the line through the king. King moves are legal when the destination is
+     * not attacked with the king lifted off the board, so it cannot hide behind itself.
+     *
+     * @return number of moves kept
+     */
+    private int filterLegal(TeamColor team, int[] moves, int count) {
+        long king = board.getPieces(team, ChessPiece.PieceType.KING);
+        if (king == 0) {return count;}
+        int kingSquare = Long.numberOfTrailingZeros(king);
+        TeamColor enemy = opponent(team);
+        long occupied = board.getOccupied();
+        long own = board.getTeam(team);
+
+        long checkers = board.attackers(kingSquare, enemy, occupied);
+        long checkMask;
+        if (checkers == 0) {checkMask = -1L;}
+        else if ((checkers & (checkers - 1)) == 0) {checkMask = checkers | Attacks.between(kingSquare, Long.numberOfTrailingZeros(checkers));}
+        else {checkMask = 0L;}
+
+        long enemyQueens = board.getPieces(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (Attacks.rook(kingSquare, 0) & (board.getPieces(enemy, ChessPiece.PieceType.ROOK) | enemyQueens))
+                | (Attacks.bishop(kingSquare, 0) & (board.getPieces(enemy, ChessPiece.PieceType.BISHOP) | enemyQueens));
+        long pinned = 0;
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = Attacks.between(kingSquare, Long.numberOfTrailingZeros(snipers)) & occupied;
+            if ((blockers & (blockers - 1)) == 0) {pinned |= blockers & own;}
+        }
+
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int from = Move.from(move);
+            int to = Move.to(move);
+            boolean legal;
+            if (from == kingSquare) {
+                legal = !board.isAttacked(to, enemy, occupied & ~king);
+            } else {
+                legal = (checkMask & (1L << to)) != 0
+                        && ((pinned & (1L << from)) == 0 || (Attacks.line(kingSquare, from) & (1L << to)) != 0);
             }
+            if (legal) {moves[kept++] = move;}
         }
-        return snipers;
+        return kept;
     }
 
-    private HashSet<ChessMove> kingCheckBy(HashSet<ChessPosition> team, ChessPosition kingPos, TeamColor kingColor) {
-        ChessPiece target = board.getPiece(kingPos);
-        HashSet<ChessMove> snipers;
-        board.addPiece(kingPos, new ChessPiece(kingColor, ChessPiece.PieceType.PAWN));
-        if (target != null && target.getPieceType() != ChessPiece.PieceType.KING) {
-            team.remove(kingPos);
-            snipers = checkCheckBy(team, kingPos);
-            board.addPiece(kingPos, target);
-            team.add(kingPos);
-        } else {
-            snipers = checkCheckBy(team, kingPos);
-            board.addPiece(kingPos, null);
-        }
-        return snipers;
+    /**
+     * Gets a 64-bit Zobrist key for the position: the board's piece hash mixed with
+     * the side to move. Equal positions always have equal keys, and the key is
+     * updated incrementally as moves are made, so it is cheap enough to use for
+     * caches and repetition detection.
+     *
+     * @return hash of the board and the team whose turn it is
+     */
+    public long zobrist() {
+        return (teamTurn == TeamColor.BLACK) ? board.zobrist() ^ Zobrist.side() : board.zobrist();
     }
 
-    private boolean blocks(ChessPosition pos, ChessMove path) {
-        ChessPosition pathStart = path.getStartPosition();
-        ChessPosition pathEnd = path.getEndPosition();
-        if (pos.equals(pathStart)) {return true;}
-        if (pathStart.getRow() == pathEnd.getRow()) {
-            return (pathStart.getColumn() < pos.getColumn() && pos.getColumn() < pathEnd.getColumn()) && (pos.getRow() == pathEnd.getRow());
-        }
-        else if (pathStart.getColumn() == pathEnd.getColumn()) {
-            return (pathStart.getRow() < pos.getRow() && pos.getRow() < pathEnd.getRow()) && (pos.getColumn() == pathEnd.getColumn());
-        }
-        int rowDif = pathStart.getRow() - pathEnd.getRow();
-        int colDif = pathStart.getColumn() - pathEnd.getColumn();
-        if (Math.abs(rowDif) != Math.abs(colDif)) {return false;}
-        else {
-            int rowDir = Integer.signum(rowDif);
-            int colDir = Integer.signum(colDif);
-            for (int dis = 1; dis <= Math.abs(rowDif); dis++) {
-                if (pos.getRow() == pathStart.getRow() - rowDir * dis && pos.getColumn() == pathStart.getColumn() - colDir * dis) {
-                    return true;
-                }
-            }
-        }
-        return false;
+    private static TeamColor opponent(TeamColor team) {
+        return (team == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
     }
 
     @Override
@@ -262,7 +308,8 @@ public class ChessGame {
 
     @Override
     public int hashCode() {
-        return Objects.hash(getTeamTurn(), getBoard());
+        long key = zobrist();
+        return (int) (key ^ (key >>> 32));
     }
 
     @Override
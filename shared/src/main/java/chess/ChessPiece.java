@@ -1,8 +1,8 @@
 package chess;
 
 import java.util.Collection;
-import java.util.Objects;
-import chess.positioning.Calculator;
+import chess.positioning.Move;
+import chess.positioning.MoveGenerator;
 
 /**
  * Represents a single chess piece
@@ -54,8 +54,9 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        var calculator = Calculator.getCalculator(board, myPosition, this);
-        return calculator.getMoves();
+        int[] buffer = new int[MoveGenerator.MAX_PIECE_MOVES];
+        int count = MoveGenerator.generate(board, ChessBoard.square(myPosition), color, type, buffer, 0);
+        return Move.toChessMoves(buffer, count);
     }
 
     public ChessPiece copy() {
@@ -72,7 +73,7 @@ public class ChessPiece {
 
     @Override
     public int hashCode() {
-        return Objects.hash(this.color, this.type);
+        return (this.color.ordinal() << 3) | this.type.ordinal();
     }
 
     @Override
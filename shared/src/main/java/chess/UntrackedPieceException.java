@@ -1,8 +0,0 @@
-package chess;
-
-public class UntrackedPieceException extends RuntimeException {
-    public UntrackedPieceException() {}
-    public UntrackedPieceException(String message) {
-        super(message);
-    }
-}
@@ -0,0 +1,176 @@
+package chess.positioning;
+
+import chess.ChessGame;
+
+/**
+ * Precomputed attack sets, indexed by square (see {@link chess.ChessBoard#square}).
+ * <p>
+ * Knight, king and pawn attacks are plain per-square tables. Rook and bishop
+ * attacks use PEXT-style lookups: the occupancy of a square's relevant rays is
+ * compressed with {@link Long#compress} (a single PEXT instruction on CPUs that
+ * have it) into a dense index into that square's slice of a shared table.
+ * Queen attacks are the union of the two. The between/line tables describe the
+ * geometry used for pin and check detection.
+ */
+public final class Attacks {
+
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+
+    private static final long[] ROOK_MASK = new long[64];
+    private static final int[] ROOK_OFFSET = new int[64];
+    private static final long[] ROOK_TABLE;
+
+    private static final long[] BISHOP_MASK = new long[64];
+    private static final int[] BISHOP_OFFSET = new int[64];
+    private static final long[] BISHOP_TABLE;
+
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    private static final int[][] KNIGHT_STEPS = {{1,2},{1,-2},{-1,2},{-1,-2},{2,1},{2,-1},{-2,1},{-2,-1}};
+    private static final int[][] KING_STEPS = {{1, 0},{0,1},{-1,0},{0,-1},{1,1},{1,-1},{-1,1},{-1,-1}};
+    private static final int[][] ROOK_STEPS = {{1, 0},{0,1},{-1,0},{0,-1}};
+    private static final int[][] BISHOP_STEPS = {{1, 1},{1,-1},{-1,1},{-1,-1}};
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT[square] = steps(square, KNIGHT_STEPS);
+            KING[square] = steps(square, KING_STEPS);
+            PAWN[0][square] = steps(square, new int[][] {{1, 1}, {1, -1}});
+            PAWN[1][square] = steps(square, new int[][] {{-1, 1}, {-1, -1}});
+        }
+        ROOK_TABLE = buildSlider(ROOK_STEPS, ROOK_MASK, ROOK_OFFSET);
+        BISHOP_TABLE = buildSlider(BISHOP_STEPS, BISHOP_MASK, BISHOP_OFFSET);
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                long aBit = 1L << a;
+                long bBit = 1L << b;
+                int[][] directions;
+                if ((rook(a, 0) & bBit) != 0) {directions = ROOK_STEPS;}
+                else if ((bishop(a, 0) & bBit) != 0) {directions = BISHOP_STEPS;}
+                else {continue;}
+                BETWEEN[a][b] = rays(a, directions, bBit) & rays(b, directions, aBit);
+                LINE[a][b] = (rays(a, directions, 0) & rays(b, directions, 0)) | aBit | bBit;
+            }
+        }
+    }
+
+    private Attacks() {}
+
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * @return squares a pawn of the given team standing on the square attacks
+     */
+    public static long pawn(ChessGame.TeamColor team, int square) {
+        return switch (team) {
+            case WHITE -> PAWN[0][square];
+            case BLACK -> PAWN[1][square];
+            default -> 0L;
+        };
+    }
+
+    public static long rook(int square, long occupied) {
+        return ROOK_TABLE[ROOK_OFFSET[square] + (int) Long.compress(occupied, ROOK_MASK[square])];
+    }
+
+    public static long bishop(int square, long occupied) {
+        return BISHOP_TABLE[BISHOP_OFFSET[square] + (int) Long.compress(occupied, BISHOP_MASK[square])];
+    }
+
+    public static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    /**
+     * @return squares strictly between two squares on a shared rank, file or
+     * diagonal, or an empty set if they are not aligned
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * @return the whole rank, file or diagonal through two squares (including
+     * both), or an empty set if they are not aligned
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    private static long[] buildSlider(int[][] directions, long[] masks, int[] offsets) {
+        int size = 0;
+        for (int square = 0; square < 64; square++) {
+            masks[square] = relevantOccupancy(square, directions);
+            offsets[square] = size;
+            size += 1 << Long.bitCount(masks[square]);
+        }
+        long[] table = new long[size];
+        for (int square = 0; square < 64; square++) {
+            int subsets = 1 << Long.bitCount(masks[square]);
+            for (int index = 0; index < subsets; index++) {
+                long occupied = Long.expand(index, masks[square]);
+                table[offsets[square] + index] = rays(square, directions, occupied);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Squares whose occupancy can change a slider's attacks: every ray square
+     * except the last one before the edge, which is attacked either way.
+     */
+    private static long relevantOccupancy(int square, int[][] directions) {
+        long mask = 0;
+        int row = square / 8;
+        int col = square % 8;
+        for (int[] dir : directions) {
+            int r = row + dir[0];
+            int c = col + dir[1];
+            while (0 <= r + dir[0] && r + dir[0] < 8 && 0 <= c + dir[1] && c + dir[1] < 8) {
+                mask |= 1L << (r * 8 + c);
+                r += dir[0];
+                c += dir[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long steps(int square, int[][] directions) {
+        long targets = 0;
+        int row = square / 8;
+        int col = square % 8;
+        for (int[] dir : directions) {
+            int r = row + dir[0];
+            int c = col + dir[1];
+            if (0 <= r && r < 8 && 0 <= c && c < 8) {targets |= 1L << (r * 8 + c);}
+        }
+        return targets;
+    }
+
+    private static long rays(int square, int[][] directions, long occupied) {
+        long targets = 0;
+        int row = square / 8;
+        int col = square % 8;
+        for (int[] dir : directions) {
+            int r = row + dir[0];
+            int c = col + dir[1];
+            while (0 <= r && r < 8 && 0 <= c && c < 8) {
+                long bit = 1L << (r * 8 + c);
+                targets |= bit;
+                if ((occupied & bit) != 0) {break;}
+                r += dir[0];
+                c += dir[1];
+            }
+        }
+        return targets;
+    }
+}
@@ -0,0 +1,244 @@
+package chess.positioning;
+
+import chess.*;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Shared, thread-safe Gson configured with streaming adapters that write chess
+ * types in compact text forms instead of walking their fields by reflection:
+ * <ul>
+ *     <li>{@link ChessPosition}: algebraic square, e.g. {@code "e4"}</li>
+ *     <li>{@link ChessMove}: from and to squares plus promotion letter, e.g. {@code "e7e8q"}</li>
+ *     <li>{@link ChessPiece}: FEN letter, upper case for white, e.g. {@code "N"}</li>
+ *     <li>{@link ChessBoard}: FEN piece placement</li>
+ *     <li>{@link ChessGame}: full FEN, with the ply in the move number (see {@link Fen})</li>
+ * </ul>
+ * A value with no compact form (an off-board position, a FINISHED piece, a
+ * finished game) is written as the plain reflective object instead, and both
+ * forms are accepted when reading. Boards written before the bitboard layout,
+ * an object holding an 8x8 {@code board} array of pieces, are also accepted and
+ * rebuilt, so games stored by any earlier version of the server still load.
+ */
+public final class ChessJson {
+
+    private static final Gson GSON = builder().create();
+
+    private ChessJson() {}
+
+    /**
+     * @return the shared instance; Gson is immutable and safe to use from any thread
+     */
+    public static Gson gson() {
+        return GSON;
+    }
+
+    /**
+     * @return a builder with the chess adapters registered, for callers that need
+     * extra settings
+     */
+    public static GsonBuilder builder() {
+        return new GsonBuilder().registerTypeAdapterFactory(new Factory());
+    }
+
+    private static final class Factory implements TypeAdapterFactory {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            Class<? super T> raw = type.getRawType();
+            if (raw == ChessPosition.class) {
+                return (TypeAdapter<T>) new PositionAdapter(gson.getDelegateAdapter(this, TypeToken.get(ChessPosition.class)));
+            }
+            if (raw == ChessMove.class) {
+                return (TypeAdapter<T>) new MoveAdapter(gson.getDelegateAdapter(this, TypeToken.get(ChessMove.class)));
+            }
+            if (raw == ChessPiece.class) {
+                return (TypeAdapter<T>) new PieceAdapter(gson.getDelegateAdapter(this, TypeToken.get(ChessPiece.class)));
+            }
+            if (raw == ChessBoard.class) {
+                return (TypeAdapter<T>) new BoardAdapter(gson.getDelegateAdapter(this, TypeToken.get(ChessBoard.class)));
+            }
+            if (raw == ChessGame.class) {
+                return (TypeAdapter<T>) new GameAdapter(gson.getDelegateAdapter(this, TypeToken.get(ChessGame.class)));
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Writes a value as a string when {@link #encode} can, otherwise through the
+     * reflective adapter; reads strings with {@link #decode} and anything else
+     * through the reflective adapter
+     */
+    private abstract static class CompactAdapter<T> extends TypeAdapter<T> {
+        final TypeAdapter<T> reflective;
+
+        CompactAdapter(TypeAdapter<T> reflective) {
+            this.reflective = reflective;
+        }
+
+        /**
+         * @return the compact form, or null if the value has none
+         */
+        abstract String encode(T value);
+
+        abstract T decode(String text);
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            String text = (value == null) ? null : encode(value);
+            if (text != null) {out.value(text);}
+            else {reflective.write(out, value);}
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            if (in.peek() != JsonToken.STRING) {return reflective.read(in);}
+            String text = in.nextString();
+            try {
+                return decode(text);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+                throw new IOException("Malformed chess value: " + text, ex);
+            }
+        }
+    }
+
+    private static final class PositionAdapter extends CompactAdapter<ChessPosition> {
+        PositionAdapter(TypeAdapter<ChessPosition> reflective) {super(reflective);}
+
+        @Override
+        String encode(ChessPosition value) {return square(value);}
+
+        @Override
+        ChessPosition decode(String text) {
+            if (text.length() != 2) {throw new IllegalArgumentException("Not a square: " + text);}
+            return position(text, 0);
+        }
+    }
+
+    private static final class MoveAdapter extends CompactAdapter<ChessMove> {
+        MoveAdapter(TypeAdapter<ChessMove> reflective) {super(reflective);}
+
+        @Override
+        String encode(ChessMove value) {
+            String from = square(value.getStartPosition());
+            String to = square(value.getEndPosition());
+            if (from == null || to == null) {return null;}
+            ChessPiece.PieceType promotion = value.getPromotionPiece();
+            if (promotion == null) {return from + to;}
+            return from + to + Fen.letter(new ChessPiece(ChessGame.TeamColor.BLACK, promotion));
+        }
+
+        @Override
+        ChessMove decode(String text) {
+            if (text.length() != 4 && text.length() != 5) {throw new IllegalArgumentException("Not a move: " + text);}
+            ChessPiece.PieceType promotion = (text.length() == 5) ? Fen.piece(text.charAt(4)).getPieceType() : null;
+            return new ChessMove(position(text, 0), position(text, 2), promotion);
+        }
+    }
+
+    private static final class PieceAdapter extends CompactAdapter<ChessPiece> {
+        PieceAdapter(TypeAdapter<ChessPiece> reflective) {super(reflective);}
+
+        @Override
+        String encode(ChessPiece value) {
+            char c = Fen.letter(value);
+            return (c == 0) ? null : String.valueOf(c);
+        }
+
+        @Override
+        ChessPiece decode(String text) {
+            if (text.length() != 1) {throw new IllegalArgumentException("Not a piece: " + text);}
+            return Fen.piece(text.charAt(0));
+        }
+    }
+
+    private static final class BoardAdapter extends CompactAdapter<ChessBoard> {
+        BoardAdapter(TypeAdapter<ChessBoard> reflective) {super(reflective);}
+
+        @Override
+        String encode(ChessBoard value) {return Fen.placement(value);}
+
+        @Override
+        ChessBoard decode(String text) {return Fen.board(text);}
+
+        //boards saved before the bitboard layout are an object holding an 8x8 "board" array of pieces
+        @Override
+        public ChessBoard read(JsonReader in) throws IOException {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {return super.read(in);}
+            JsonObject object = JsonParser.parseReader(in).getAsJsonObject();
+            JsonElement squares = object.get("board");
+            if (squares == null || !squares.isJsonArray()) {return reflective.fromJsonTree(object);}
+            try {
+                return legacyBoard(squares.getAsJsonArray());
+            } catch (IllegalArgumentException | IllegalStateException | IndexOutOfBoundsException ex) {
+                throw new IOException("Malformed chess board: " + squares, ex);
+            }
+        }
+
+        private static ChessBoard legacyBoard(JsonArray rows) {
+            if (rows.size() != 8) {throw new IllegalArgumentException("Board needs 8 rows");}
+            ChessBoard board = new ChessBoard();
+            for (int row = 0; row < 8; row++) {
+                JsonArray cols = rows.get(row).getAsJsonArray();
+                if (cols.size() != 8) {throw new IllegalArgumentException("Board row needs 8 squares");}
+                for (int col = 0; col < 8; col++) {
+                    JsonElement cell = cols.get(col);
+                    if (cell.isJsonNull()) {continue;}
+                    board.addPiece(new ChessPosition(row + 1, col + 1), legacyPiece(cell.getAsJsonObject()));
+                }
+            }
+            return board;
+        }
+
+        private static ChessPiece legacyPiece(JsonObject piece) {
+            JsonElement color = piece.get("color");
+            JsonElement type = piece.get("type");
+            if (color == null || type == null) {throw new IllegalArgumentException("Piece needs color and type");}
+            return new ChessPiece(ChessGame.TeamColor.valueOf(color.getAsString()), ChessPiece.PieceType.valueOf(type.getAsString()));
+        }
+    }
+
+    private static final class GameAdapter extends CompactAdapter<ChessGame> {
+        GameAdapter(TypeAdapter<ChessGame> reflective) {super(reflective);}
+
+        @Override
+        String encode(ChessGame value) {return Fen.format(value);}
+
+        @Override
+        ChessGame decode(String text) {return Fen.parse(text);}
+    }
+
+    /**
+     * @return algebraic name of a position, or null if it is off the board
+     */
+    private static String square(ChessPosition position) {
+        if (position == null) {return null;}
+        int row = position.getRow();
+        int col = position.getColumn();
+        if (row < 1 || row > 8 || col < 1 || col > 8) {return null;}
+        return new String(new char[] {(char) ('a' + col - 1), (char) ('0' + row)});
+    }
+
+    private static ChessPosition position(String text, int offset) {
+        int col = text.charAt(offset) - 'a' + 1;
+        int row = text.charAt(offset + 1) - '0';
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            throw new IllegalArgumentException("Not a square: " + text.substring(offset, offset + 2));
+        }
+        return new ChessPosition(row, col);
+    }
+}
@@ -0,0 +1,143 @@
+package chess.positioning;
+
+import chess.*;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation. Only the piece
+ * placement, side-to-move and move number fields are used. The rules engine has
+ * no castling or en passant, so those fields must be {@code -}; the halfmove
+ * clock is ignored. The move number and side to move together give the game's ply.
+ */
+public final class Fen {
+
+    public static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+
+    private Fen() {}
+
+    /**
+     * @param fen position in FEN, e.g. {@link #START}
+     * @return a game in that position
+     * @throws IllegalArgumentException if the placement field is malformed, or the
+     * position grants castling rights or an en passant square
+     */
+    public static ChessGame parse(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        String[] ranks = fields[0].split("/");
+        if (ranks.length != 8) {throw new IllegalArgumentException("FEN needs 8 ranks: " + fen);}
+        ChessBoard board = new ChessBoard();
+        for (int i = 0; i < 8; i++) {
+            int row = 8 - i;
+            int col = 1;
+            for (char c : ranks[i].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    col += c - '0';
+                    continue;
+                }
+                if (col > 8) {throw new IllegalArgumentException("FEN rank too long: " + ranks[i]);}
+                board.addPiece(new ChessPosition(row, col++), piece(c));
+            }
+            if (col != 9) {throw new IllegalArgumentException("FEN rank has wrong length: " + ranks[i]);}
+        }
+        for (int i = 2; i < Math.min(fields.length, 4); i++) {
+            if (!fields[i].equals("-")) {throw new IllegalArgumentException("FEN castling and en passant are not supported: " + fen);}
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        boolean black = fields.length > 1 && fields[1].equals("b");
+        game.setTeamTurn(black ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        if (fields.length > 5) {
+            try {
+                game.setPly(Math.max(0, 2 * (Integer.parseInt(fields[5]) - 1) + (black ? 1 : 0)));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("FEN move number is not a number: " + fields[5]);
+            }
+        }
+        return game;
+    }
+
+    /**
+     * @return the game in FEN, or null if it has no FEN form (the game is
+     * finished, a piece belongs to neither side, or the ply does not match the
+     * side to move)
+     */
+    public static String format(ChessGame game) {
+        ChessGame.TeamColor turn = game.getTeamTurn();
+        if (turn != ChessGame.TeamColor.WHITE && turn != ChessGame.TeamColor.BLACK) {return null;}
+        if ((game.getPly() % 2 == 1) != (turn == ChessGame.TeamColor.BLACK)) {return null;}
+        String placement = placement(game.getBoard());
+        if (placement == null) {return null;}
+        return placement + (turn == ChessGame.TeamColor.WHITE ? " w" : " b") + " - - 0 " + (game.getPly() / 2 + 1);
+    }
+
+    /**
+     * @return the piece placement field for the board, or null if a piece belongs
+     * to neither side
+     */
+    public static String placement(ChessBoard board) {
+        StringBuilder out = new StringBuilder(72);
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                ChessPiece piece = board.getPiece(row * 8 + col);
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                char c = letter(piece);
+                if (c == 0) {return null;}
+                if (empty > 0) {out.append(empty);}
+                empty = 0;
+                out.append(c);
+            }
+            if (empty > 0) {out.append(empty);}
+            if (row > 0) {out.append('/');}
+        }
+        return out.toString();
+    }
+
+    /**
+     * @return a board with the pieces of a placement field
+     * @throws IllegalArgumentException if the placement is malformed
+     */
+    public static ChessBoard board(String placement) {
+        return parse(placement).getBoard();
+    }
+
+    /**
+     * @return the FEN letter for a piece (upper case for white), or 0 if it
+     * belongs to neither side
+     */
+    public static char letter(ChessPiece piece) {
+        char c = switch (piece.getPieceType()) {
+            case KING -> 'k';
+            case QUEEN -> 'q';
+            case BISHOP -> 'b';
+            case KNIGHT -> 'n';
+            case ROOK -> 'r';
+            case PAWN -> 'p';
+        };
+        return switch (piece.getTeamColor()) {
+            case WHITE -> Character.toUpperCase(c);
+            case BLACK -> c;
+            default -> 0;
+        };
+    }
+
+    /**
+     * @return the piece a FEN letter stands for
+     * @throws IllegalArgumentException if the letter is not a piece
+     */
+    public static ChessPiece piece(char c) {
+        ChessGame.TeamColor team = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        ChessPiece.PieceType type = switch (Character.toLowerCase(c)) {
+            case 'k' -> ChessPiece.PieceType.KING;
+            case 'q' -> ChessPiece.PieceType.QUEEN;
+            case 'b' -> ChessPiece.PieceType.BISHOP;
+            case 'n' -> ChessPiece.PieceType.KNIGHT;
+            case 'r' -> ChessPiece.PieceType.ROOK;
+            case 'p' -> ChessPiece.PieceType.PAWN;
+            default -> throw new IllegalArgumentException("Unknown FEN piece: " + c);
+        };
+        return new ChessPiece(team, type);
+    }
+}
@@ -0,0 +1,70 @@
+package chess.positioning;
+
+import chess.*;
+
+/**
+ * Compact binary form of a {@link ChessGame}, used instead of JSON when games are
+ * stored in a binary database column.
+ * <p>
+ * Layout: a format version byte, the turn's ordinal (or -1 when unset), the
+ * board's 8-byte occupancy bitboard, the 4-byte ply count (both big-endian),
+ * then one byte per occupied square in ascending square order holding
+ * {@code team ordinal << 3 | type ordinal}. A full starting board is 46 bytes.
+ * Version 1, which had no ply count, can still be decoded.
+ */
+public final class GameCodec {
+
+    private static final byte VERSION = 2;
+    private static final int HEADER = 14;
+    private static final int HEADER_V1 = 10;
+    private static final ChessGame.TeamColor[] TEAMS = ChessGame.TeamColor.values();
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private GameCodec() {}
+
+    public static byte[] encode(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        long occupied = board.getOccupied();
+        byte[] bytes = new byte[HEADER + Long.bitCount(occupied)];
+        bytes[0] = VERSION;
+        bytes[1] = (byte) ((game.getTeamTurn() == null) ? -1 : game.getTeamTurn().ordinal());
+        for (int i = 0; i < 8; i++) {bytes[2 + i] = (byte) (occupied >>> (56 - 8 * i));}
+        for (int i = 0; i < 4; i++) {bytes[10 + i] = (byte) (game.getPly() >>> (24 - 8 * i));}
+        int next = HEADER;
+        for (long bits = occupied; bits != 0; bits &= bits - 1) {
+            ChessPiece piece = board.getPiece(Long.numberOfTrailingZeros(bits));
+            bytes[next++] = (byte) ((piece.getTeamColor().ordinal() << 3) | piece.getPieceType().ordinal());
+        }
+        return bytes;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not a game in this format
+     */
+    public static ChessGame decode(byte[] bytes) {
+        if (bytes.length < HEADER_V1 || (bytes[0] != VERSION && bytes[0] != 1)) {
+            throw new IllegalArgumentException("Not an encoded game");
+        }
+        int header = (bytes[0] == VERSION) ? HEADER : HEADER_V1;
+        long occupied = 0;
+        for (int i = 0; i < 8; i++) {occupied = (occupied << 8) | (bytes[2 + i] & 0xFF);}
+        if (bytes.length != header + Long.bitCount(occupied)) {throw new IllegalArgumentException("Encoded game is truncated");}
+        if (bytes[1] < -1 || bytes[1] >= TEAMS.length) {throw new IllegalArgumentException("Bad turn byte: " + bytes[1]);}
+        int ply = 0;
+        for (int i = HEADER_V1; i < header; i++) {ply = (ply << 8) | (bytes[i] & 0xFF);}
+        ChessBoard board = new ChessBoard();
+        int next = header;
+        for (long bits = occupied; bits != 0; bits &= bits - 1) {
+            int code = bytes[next++];
+            if (code < 0 || (code >>> 3) >= TEAMS.length || (code & 0x7) >= TYPES.length) {
+                throw new IllegalArgumentException("Bad piece code: " + code);
+            }
+            board.addPiece(ChessBoard.position(Long.numberOfTrailingZeros(bits)), new ChessPiece(TEAMS[code >>> 3], TYPES[code & 0x7]));
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn((bytes[1] < 0) ? null : TEAMS[bytes[1]]);
+        game.setPly(ply);
+        return game;
+    }
+}
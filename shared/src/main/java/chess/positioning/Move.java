@@ -0,0 +1,58 @@
+package chess.positioning;
+
+import java.util.HashSet;
+
+import chess.*;
+
+/**
+ * Packs a move into a single int so move lists can live in a reusable int[]
+ * instead of a collection of ChessMove objects.
+ * <p>
+ * Bits 0-5 hold the start square, bits 6-11 the end square and bits 12-14 the
+ * promotion piece (its ordinal plus one, or zero for no promotion). Squares use
+ * the same indexing as {@link ChessBoard#square(ChessPosition)}.
+ */
+public final class Move {
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private Move() {}
+
+    public static int of(int from, int to) {
+        return from | (to << 6);
+    }
+
+    public static int of(int from, int to, ChessPiece.PieceType promotion) {
+        return (promotion == null) ? of(from, to) : of(from, to) | ((promotion.ordinal() + 1) << 12);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static ChessPiece.PieceType promotion(int move) {
+        int code = (move >>> 12) & 0x7;
+        return (code == 0) ? null : TYPES[code - 1];
+    }
+
+    public static int pack(ChessMove move) {
+        return of(ChessBoard.square(move.getStartPosition()), ChessBoard.square(move.getEndPosition()), move.getPromotionPiece());
+    }
+
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(ChessBoard.position(from(move)), ChessBoard.position(to(move)), promotion(move));
+    }
+
+    /**
+     * Converts the first {@code count} packed moves of a buffer into ChessMoves
+     */
+    public static HashSet<ChessMove> toChessMoves(int[] buffer, int count) {
+        HashSet<ChessMove> moves = new HashSet<>();
+        for (int i = 0; i < count; i++) {moves.add(toChessMove(buffer[i]));}
+        return moves;
+    }
+}
@@ -0,0 +1,117 @@
+package chess.positioning;
+
+import chess.*;
+
+/**
+ * Generates pseudo-legal moves (moves that ignore whether the king is left in
+ * danger) straight from the board's bitboards, using the {@link Attacks} tables
+ * so each piece's targets are a few lookups and mask operations.
+ * <p>
+ * Moves are written as packed ints (see {@link Move}) into a buffer owned by the
+ * caller, so generating moves allocates nothing. Every method takes the number of
+ * moves already in the buffer and returns the new count, which lets callers
+ * collect moves for several pieces into one buffer.
+ */
+public final class MoveGenerator {
+
+    /**
+     * Most pseudo-legal moves a single piece can have (a queen in the open)
+     */
+    public static final int MAX_PIECE_MOVES = 27;
+
+    /**
+     * Buffer size that holds every pseudo-legal move of a whole team
+     */
+    public static final int MAX_MOVES = 256;
+
+    private static final long RANK_3 = 0xFFL << 16;
+    private static final long RANK_6 = 0xFFL << 40;
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK, ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT};
+
+    private MoveGenerator() {}
+
+    /**
+     * Generates moves for the piece standing on a square
+     *
+     * @return the new number of moves in the buffer
+     */
+    public static int generate(ChessBoard board, int square, int[] buffer, int count) {
+        ChessPiece piece = board.getPiece(square);
+        if (piece == null) {return count;}
+        return generate(board, square, piece.getTeamColor(), piece.getPieceType(), buffer, count);
+    }
+
+    /**
+     * Generates moves for every piece of a team
+     *
+     * @return the new number of moves in the buffer
+     */
+    public static int generateAll(ChessBoard board, ChessGame.TeamColor team, int[] buffer, int count) {
+        for (long pieces = board.getTeam(team); pieces != 0; pieces &= pieces - 1) {
+            count = generate(board, Long.numberOfTrailingZeros(pieces), buffer, count);
+        }
+        return count;
+    }
+
+    /**
+     * Generates moves as if a piece of the given team and type stood on the square
+     *
+     * @return the new number of moves in the buffer
+     */
+    public static int generate(ChessBoard board, int square, ChessGame.TeamColor team, ChessPiece.PieceType type,
+                               int[] buffer, int count) {
+        long own = board.getTeam(team);
+        long occupied = board.getOccupied();
+        long targets = switch (type) {
+            case KNIGHT -> Attacks.knight(square);
+            case KING -> Attacks.king(square);
+            case ROOK -> Attacks.rook(square, occupied);
+            case BISHOP -> Attacks.bishop(square, occupied);
+            case QUEEN -> Attacks.queen(square, occupied);
+            case PAWN -> pawnTargets(square, team, own, occupied);
+        };
+        targets &= ~own;
+        if (type == ChessPiece.PieceType.PAWN) {
+            for (; targets != 0; targets &= targets - 1) {
+                count = pawnTarget(square, Long.numberOfTrailingZeros(targets), buffer, count);
+            }
+        } else {
+            for (; targets != 0; targets &= targets - 1) {
+                buffer[count++] = Move.of(square, Long.numberOfTrailingZeros(targets));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Pawn pushes onto empty squares (two from the starting row) plus diagonal captures
+     */
+    private static long pawnTargets(int square, ChessGame.TeamColor team, long own, long occupied) {
+        long bit = 1L << square;
+        long empty = ~occupied;
+        long pushes;
+        switch (team) {
+            case WHITE -> {
+                pushes = (bit << 8) & empty;
+                pushes |= ((pushes & RANK_3) << 8) & empty;
+            }
+            case BLACK -> {
+                pushes = (bit >>> 8) & empty;
+                pushes |= ((pushes & RANK_6) >>> 8) & empty;
+            }
+            default -> {return 0L;}
+        }
+        return pushes | (Attacks.pawn(team, square) & occupied & ~own);
+    }
+
+    private static int pawnTarget(int from, int to, int[] buffer, int count) {
+        int row = to / 8;
+        if (row == 0 || row == 7) {
+            for (ChessPiece.PieceType type : PROMOTIONS) {buffer[count++] = Move.of(from, to, type);}
+        } else {
+            buffer[count++] = Move.of(from, to);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,55 @@
+package chess.positioning;
+
+import java.util.Arrays;
+
+import chess.ChessGame;
+
+/**
+ * Move path enumeration: counts the leaf nodes of the legal move tree to a fixed
+ * depth. The counts are compared against published reference values to check the
+ * rules engine, and timing them gives a repeatable throughput number.
+ * <p>
+ * Run with {@code java chess.positioning.Perft [depth] [fen]}; it prints the
+ * node count, time and nodes per second for each depth up to the one given.
+ */
+public final class Perft {
+
+    private Perft() {}
+
+    /**
+     * Counts leaf nodes to the given depth, making and unmaking moves on the game.
+     * The game is back in its starting position when this returns.
+     */
+    public static long perft(ChessGame game, int depth) {
+        int[][] buffers = new int[Math.max(depth, 1)][MoveGenerator.MAX_MOVES];
+        return perft(game, depth, buffers);
+    }
+
+    private static long perft(ChessGame game, int depth, int[][] buffers) {
+        if (depth == 0) {return 1;}
+        int[] moves = buffers[depth - 1];
+        int count = game.legalMoves(game.getTeamTurn(), moves);
+        if (depth == 1) {return count;}
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            game.makeMove(moves[i]);
+            nodes += perft(game, depth - 1, buffers);
+            game.unmakeMove();
+        }
+        return nodes;
+    }
+
+    public static void main(String[] args) {
+        int depth = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+        String fen = (args.length > 1) ? String.join(" ", Arrays.copyOfRange(args, 1, args.length)) : Fen.START;
+        ChessGame game = Fen.parse(fen);
+        System.out.println(fen);
+        for (int d = 1; d <= depth; d++) {
+            long start = System.nanoTime();
+            long nodes = perft(game, d);
+            long nanos = Math.max(System.nanoTime() - start, 1);
+            System.out.printf("depth %d: %,d nodes in %.3f s (%,.0f nodes/s)%n",
+                    d, nodes, nanos / 1e9, nodes * 1e9 / nanos);
+        }
+    }
+}
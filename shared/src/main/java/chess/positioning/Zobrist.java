@@ -0,0 +1,44 @@
+package chess.positioning;
+
+import java.util.SplittableRandom;
+
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Random keys for Zobrist hashing. A position's hash is the XOR of the key for
+ * every (piece, square) pair on the board, plus {@link #side()} when black is to
+ * move, so adding, removing or moving a piece updates it with one or two XORs.
+ * <p>
+ * Keys come from a fixed seed, so hashes are stable across runs and JVMs and can
+ * be stored or compared between processes.
+ */
+public final class Zobrist {
+
+    private static final int PIECE_KINDS = ChessGame.TeamColor.values().length * ChessPiece.PieceType.values().length;
+    private static final long[] PIECE_SQUARE = new long[PIECE_KINDS * 64];
+    private static final long SIDE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_C4E55L);
+        for (int i = 0; i < PIECE_SQUARE.length; i++) {PIECE_SQUARE[i] = random.nextLong();}
+        SIDE = random.nextLong();
+    }
+
+    private Zobrist() {}
+
+    /**
+     * @param piece  piece index, team ordinal * piece types + type ordinal
+     * @param square square index, 0 (a1) to 63 (h8)
+     */
+    public static long piece(int piece, int square) {
+        return PIECE_SQUARE[piece * 64 + square];
+    }
+
+    /**
+     * @return key mixed in when black is to move
+     */
+    public static long side() {
+        return SIDE;
+    }
+}
@@ -0,0 +1,13 @@
+package request;
+
+/**
+ * Filters and page for listing games. Every field is optional: cursor is the
+ * last gameID of the previous page, limit caps the page size, openOnly keeps
+ * games with a free seat, player keeps games the user plays in, and status is
+ * "active" or "finished".
+ */
+public record ListRequest(Integer cursor, Integer limit, boolean openOnly, String player, String status) {
+    public static final String ACTIVE = "active";
+    public static final String FINISHED = "finished";
+    public static final ListRequest ALL = new ListRequest(null, null, false, null, null);
+}
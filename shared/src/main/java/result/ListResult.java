@@ -6,6 +6,8 @@ import java.util.ArrayList;
 
 public class ListResult {
     private ArrayList<GameData> games;
+    //gameID to pass as the cursor for the next page, or null on the last page
+    private Integer nextCursor;
     public ListResult() {
         games = new ArrayList<>();
     }
@@ -17,4 +19,12 @@ public class ListResult {
     public ArrayList<GameData> getArray() {
         return games;
     }
+
+    public Integer getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Integer nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
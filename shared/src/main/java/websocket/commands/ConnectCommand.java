@@ -0,0 +1,18 @@
+package websocket.commands;
+
+/**
+ * CONNECT that can opt the session into {@link websocket.messages.MoveMade} deltas
+ * after each move instead of a full LOAD_GAME
+ */
+public class ConnectCommand extends UserGameCommand {
+    private final boolean moveDeltas;
+
+    public ConnectCommand(String authToken, Integer gameID, boolean moveDeltas) {
+        super(CommandType.CONNECT, authToken, gameID);
+        this.moveDeltas = moveDeltas;
+    }
+
+    public boolean wantsMoveDeltas() {
+        return moveDeltas;
+    }
+}
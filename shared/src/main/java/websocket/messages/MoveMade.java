@@ -0,0 +1,55 @@
+package websocket.messages;
+
+import chess.ChessGame;
+import chess.ChessMove;
+
+/**
+ * A move applied to the game, sent in place of a full LOAD_GAME to sessions that
+ * asked for deltas. The client replays the move on its own copy and checks the
+ * ply and Zobrist hash it ends up with; on any mismatch it asks for a RESYNC.
+ */
+public class MoveMade extends ServerMessage {
+    private final ChessMove move;
+    private final int ply;
+    private final long hash;
+    private final ChessGame.TeamColor teamTurn;
+    private final String status;
+
+    public MoveMade(ChessMove move, ChessGame game, String status) {
+        super(ServerMessageType.MOVE);
+        this.move = move;
+        this.ply = game.getPly();
+        this.hash = game.zobrist();
+        this.teamTurn = game.getTeamTurn();
+        this.status = status;
+    }
+
+    public ChessMove getMove() {
+        return move;
+    }
+
+    /**
+     * @return ply of the game after the move
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * @return Zobrist hash of the game after the move
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    public ChessGame.TeamColor getTeamTurn() {
+        return teamTurn;
+    }
+
+    /**
+     * @return "check", "checkmate" or "stalemate" for the side to move, or empty
+     */
+    public String getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,114 @@
+package chess.positioning;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import chess.*;
+import model.GameData;
+
+public class ChessJsonTests {
+
+    private final Gson gson = ChessJson.gson();
+
+    //ChessGame after 1. e4 e5, as plain Gson wrote it before ChessBoard moved to bitboards
+    private static final String BASELINE_GAME = """
+            {"teamTurn":"WHITE","board":{"board":[
+                [{"color":"WHITE","type":"ROOK"},{"color":"WHITE","type":"KNIGHT"},{"color":"WHITE","type":"BISHOP"},{"color":"WHITE","type":"QUEEN"},{"color":"WHITE","type":"KING"},{"color":"WHITE","type":"BISHOP"},{"color":"WHITE","type":"KNIGHT"},{"color":"WHITE","type":"ROOK"}],
+                [{"color":"WHITE","type":"PAWN"},{"color":"WHITE","type":"PAWN"},{"color":"WHITE","type":"PAWN"},{"color":"WHITE","type":"PAWN"},null,{"color":"WHITE","type":"PAWN"},{"color":"WHITE","type":"PAWN"},{"color":"WHITE","type":"PAWN"}],
+                [null,null,null,null,null,null,null,null],
+                [null,null,null,null,{"color":"WHITE","type":"PAWN"},null,null,null],
+                [null,null,null,null,{"color":"BLACK","type":"PAWN"},null,null,null],
+                [null,null,null,null,null,null,null,null],
+                [{"color":"BLACK","type":"PAWN"},{"color":"BLACK","type":"PAWN"},{"color":"BLACK","type":"PAWN"},{"color":"BLACK","type":"PAWN"},null,{"color":"BLACK","type":"PAWN"},{"color":"BLACK","type":"PAWN"},{"color":"BLACK","type":"PAWN"}],
+                [{"color":"BLACK","type":"ROOK"},{"color":"BLACK","type":"KNIGHT"},{"color":"BLACK","type":"BISHOP"},{"color":"BLACK","type":"QUEEN"},{"color":"BLACK","type":"KING"},{"color":"BLACK","type":"BISHOP"},{"color":"BLACK","type":"KNIGHT"},{"color":"BLACK","type":"ROOK"}]
+            ]},
+            "wTeam":[{"row":2,"col":1},{"row":1,"col":1},{"row":2,"col":2},{"row":1,"col":2},{"row":2,"col":3},{"row":4,"col":5},{"row":1,"col":3},{"row":2,"col":4},{"row":1,"col":4},{"row":1,"col":5},{"row":2,"col":6},{"row":1,"col":6},{"row":2,"col":7},{"row":1,"col":7},{"row":2,"col":8},{"row":1,"col":8}],
+            "bTeam":[{"row":7,"col":6},{"row":8,"col":7},{"row":7,"col":7},{"row":8,"col":8},{"row":5,"col":5},{"row":7,"col":8},{"row":8,"col":1},{"row":7,"col":1},{"row":8,"col":2},{"row":7,"col":2},{"row":8,"col":3},{"row":7,"col":3},{"row":8,"col":4},{"row":7,"col":4},{"row":8,"col":5},{"row":8,"col":6}],
+            "wKingLoc":{"row":1,"col":5},"bKingLoc":{"row":8,"col":5}}
+            """;
+
+    @Test
+    void compactForms() {
+        assertEquals("\"e4\"", gson.toJson(new ChessPosition(4, 5)));
+        assertEquals("\"e7e8q\"", gson.toJson(new ChessMove(new ChessPosition(7, 5), new ChessPosition(8, 5), ChessPiece.PieceType.QUEEN)));
+        assertEquals("\"n\"", gson.toJson(new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT)));
+        assertEquals("\"" + Fen.START + "\"", gson.toJson(new ChessGame()));
+    }
+
+    @Test
+    void roundTripPlayedGame() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+        game.makeMove(new ChessMove(new ChessPosition(4, 5), new ChessPosition(5, 4), null));
+        GameData data = new GameData(3, "white", null, "game", game);
+        GameData decoded = gson.fromJson(gson.toJson(data), GameData.class);
+        assertEquals(game, decoded.game());
+        assertEquals(3, decoded.game().getPly());
+        assertEquals(game.zobrist(), decoded.game().zobrist());
+    }
+
+    @Test
+    void finishedGameFallsBackToObject() {
+        ChessGame game = new ChessGame();
+        game.setTeamTurn(ChessGame.TeamColor.FINISHED);
+        game.setPly(12);
+        String json = gson.toJson(game);
+        assertTrue(json.startsWith("{"), json);
+        ChessGame decoded = gson.fromJson(json, ChessGame.class);
+        assertEquals(game, decoded);
+        assertEquals(12, decoded.getPly());
+    }
+
+    @Test
+    void readsReflectiveJson() {
+        //objects in the current field layout, as plain Gson writes them
+        ChessGame game = Fen.parse("8/P1k5/K7/8/8/8/8/8 w - - 0 1");
+        ChessMove move = new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), ChessPiece.PieceType.ROOK);
+        Gson plain = new Gson();
+        assertEquals(game, gson.fromJson(plain.toJson(game), ChessGame.class));
+        assertEquals(move, gson.fromJson(plain.toJson(move), ChessMove.class));
+    }
+
+    @Test
+    void readsBaselineJson() {
+        //board and move exactly as plain Gson wrote them before this series
+        String board = "{\"board\":[[null,null,null,null,null,null,null,null],[null,null,null,null,null,null,null,null],"
+                + "[null,null,null,null,null,null,null,null],[null,null,null,null,null,null,null,null],"
+                + "[null,null,null,null,null,null,null,null],[{\"color\":\"WHITE\",\"type\":\"KING\"},null,null,null,null,null,null,null],"
+                + "[{\"color\":\"WHITE\",\"type\":\"PAWN\"},null,{\"color\":\"BLACK\",\"type\":\"KING\"},null,null,null,null,null],"
+                + "[null,null,null,null,null,null,null,null]]}";
+        String move = "{\"startPosition\":{\"row\":7,\"col\":1},\"endPosition\":{\"row\":8,\"col\":1},\"promotionPiece\":\"ROOK\"}";
+        assertEquals(Fen.parse("8/P1k5/K7/8/8/8/8/8 w - - 0 1").getBoard(), gson.fromJson(board, ChessBoard.class));
+        assertEquals(new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), ChessPiece.PieceType.ROOK),
+                gson.fromJson(move, ChessMove.class));
+        ChessGame game = gson.fromJson("{\"teamTurn\":\"WHITE\",\"board\":" + board + ",\"wKingLoc\":{\"row\":6,\"col\":1}}", ChessGame.class);
+        assertEquals("8/P1k5/K7/8/8/8/8/8 w - - 0 1", Fen.format(game));
+    }
+
+    @Test
+    void readsBaselineBoardJson() throws InvalidMoveException {
+        ChessGame expected = new ChessGame();
+        expected.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        expected.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        ChessGame decoded = gson.fromJson(BASELINE_GAME, ChessGame.class);
+        assertEquals(expected.getBoard(), decoded.getBoard());
+        assertEquals(ChessGame.TeamColor.WHITE, decoded.getTeamTurn());
+        assertEquals(32, Long.bitCount(decoded.getBoard().getOccupied()));
+        assertEquals(expected.getBoard().zobrist(), decoded.getBoard().zobrist());
+        GameData data = gson.fromJson("{\"gameID\":1,\"gameName\":\"old\",\"game\":" + BASELINE_GAME + "}", GameData.class);
+        assertEquals(expected.getBoard(), data.game().getBoard());
+    }
+
+    @Test
+    void rejectsMalformed() {
+        assertThrows(JsonParseException.class, () -> gson.fromJson("\"i9\"", ChessPosition.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("\"e2e\"", ChessMove.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("\"8/8 w\"", ChessGame.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("{\"board\":[[null]]}", ChessBoard.class));
+    }
+}
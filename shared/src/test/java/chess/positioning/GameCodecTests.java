@@ -0,0 +1,53 @@
+package chess.positioning;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import chess.ChessGame;
+
+public class GameCodecTests {
+
+    @Test
+    void roundTripStart() {
+        ChessGame game = new ChessGame();
+        byte[] bytes = GameCodec.encode(game);
+        assertEquals(46, bytes.length);
+        assertEquals(game, GameCodec.decode(bytes));
+    }
+
+    @Test
+    void roundTripFinishedGame() {
+        ChessGame game = Fen.parse("n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1");
+        game.setTeamTurn(ChessGame.TeamColor.FINISHED);
+        game.setPly(70000);
+        ChessGame decoded = GameCodec.decode(GameCodec.encode(game));
+        assertEquals(game, decoded);
+        assertEquals(game.zobrist(), decoded.zobrist());
+        assertEquals(70000, decoded.getPly());
+    }
+
+    @Test
+    void rejectsGarbage() {
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(new byte[] {'{', '}'}));
+        byte[] bytes = GameCodec.encode(new ChessGame());
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(Arrays.copyOf(bytes, 20)));
+    }
+
+    @Test
+    void rejectsCorruptBytes() {
+        byte[] start = GameCodec.encode(new ChessGame());
+        for (byte bad : new byte[] {6, 7, 0x1E, -1, (byte) 0x80}) {
+            byte[] piece = start.clone();
+            piece[14] = bad;
+            assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(piece), "piece code " + bad);
+        }
+        for (byte bad : new byte[] {3, 127, -2}) {
+            byte[] turn = start.clone();
+            turn[1] = bad;
+            assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(turn), "turn " + bad);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package chess.positioning;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import chess.ChessGame;
+
+/**
+ * Checks perft counts against published reference values. Positions and depths
+ * are chosen so that castling and en passant, which the engine does not
+ * implement, can not occur.
+ */
+public class PerftTests {
+
+    private static void assertPerft(String fen, long... expected) {
+        ChessGame game = Fen.parse(fen);
+        long key = game.zobrist();
+        for (int depth = 1; depth <= expected.length; depth++) {
+            assertEquals(expected[depth - 1], Perft.perft(game, depth), "depth " + depth + " of " + fen);
+        }
+        assertEquals(key, game.zobrist(), "position not restored after perft");
+    }
+
+    @Test
+    void startPosition() {
+        assertPerft(Fen.START, 20, 400, 8902, 197281);
+    }
+
+    @Test
+    void pinsAndRookEndgame() {
+        assertPerft("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 14, 191);
+    }
+
+    @Test
+    void promotions() {
+        assertPerft("n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1", 24, 496, 9483, 182838);
+    }
+
+    @Test
+    void promoteOutOfCheck() {
+        assertEquals(3821001, Perft.perft(Fen.parse("2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1"), 6));
+    }
+
+    @Test
+    void doubleCheck() {
+        assertEquals(23527, Perft.perft(Fen.parse("8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1"), 4));
+    }
+
+    @Test
+    void underpromoteToCheck() {
+        assertEquals(92683, Perft.perft(Fen.parse("8/P1k5/K7/8/8/8/8/8 w - - 0 1"), 6));
+    }
+
+    @Test
+    void selfStalemate() {
+        assertEquals(2217, Perft.perft(Fen.parse("K1k5/8/P7/8/8/8/8/8 w - - 0 1"), 6));
+    }
+
+    @Test
+    void stalemateAndCheckmate() {
+        assertEquals(567584, Perft.perft(Fen.parse("8/k1P5/8/1K6/8/8/8/8 w - - 0 1"), 7));
+    }
+
+    @Test
+    void castlingAndEnPassantRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1"));
+    }
+}